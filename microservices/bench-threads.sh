@@ -0,0 +1,67 @@
+#! /bin/bash
+
+# Compares the inventory service on platform threads vs virtual threads under high concurrency.
+# Requires a JDK 21 build (./mvnw -Pjdk21 -pl inventory -am package -DskipTests) and 'hey' on the PATH.
+#
+# To simulate a slow downstream, point MONGO_URI at a latency-injecting proxy, e.g.
+#   toxiproxy-cli create -l localhost:27018 -u localhost:27017 mongo
+#   toxiproxy-cli toxic add -t latency -a latency=50 mongo
+#   MONGO_URI=mongodb://localhost:27018/inventory_db ./bench-threads.sh
+
+set -e
+
+# --- CONFIGURATION ---
+JAR="inventory/target/inventory.jar"
+MONGO_URI="${MONGO_URI:-mongodb://localhost:27017/inventory_db}"
+CONCURRENCY="${CONCURRENCY:-2000}"
+DURATION="${DURATION:-30s}"
+TOMCAT_THREADS="${TOMCAT_THREADS:-200}"
+SKU="${SKU:-SW-LIC-101}"
+BASE_URL="http://localhost:8083/api/v1/inventory"
+RESULTS_DIR="bench-results"
+# --------------------------------------------------------------------------
+
+if ! command -v hey >/dev/null; then
+    echo "❌ Error: 'hey' is required (https://github.com/rakyll/hey)."
+    exit 1
+fi
+
+mkdir -p "$RESULTS_DIR"
+
+for MODE in platform virtual; do
+    VIRTUAL="false"
+    if [ "$MODE" == "virtual" ]; then
+        VIRTUAL="true"
+    fi
+
+    echo "--- Starting inventory on $MODE threads ---"
+    # The product cache is disabled so every read reaches the (slow) downstream
+    java -jar "$JAR" \
+        --spring.threads.virtual.enabled="$VIRTUAL" \
+        --server.tomcat.threads.max="$TOMCAT_THREADS" \
+        --spring.data.mongodb.uri="$MONGO_URI" \
+        --inventory.cache.maximum-size=0 > "$RESULTS_DIR/inventory-$MODE.log" 2>&1 &
+    PID=$!
+    trap 'kill $PID 2>/dev/null' EXIT
+
+    until curl -s -o /dev/null "$BASE_URL/product/$SKU"; do
+        sleep 1
+    done
+
+    echo "   -> GET /product/$SKU with $CONCURRENCY concurrent clients for $DURATION"
+    hey -c "$CONCURRENCY" -z "$DURATION" "$BASE_URL/product/$SKU" > "$RESULTS_DIR/threads-$MODE-read.txt"
+
+    echo "   -> POST /stock/deduct with $CONCURRENCY concurrent clients for $DURATION"
+    hey -c "$CONCURRENCY" -z "$DURATION" -m POST -T "application/json" \
+        -d "[{\"sku\":\"$SKU\",\"deductQuantity\":0}]" \
+        "$BASE_URL/stock/deduct" > "$RESULTS_DIR/threads-$MODE-deduct.txt"
+
+    kill $PID
+    wait $PID 2>/dev/null || true
+done
+
+echo "--------------------------------------------------------"
+for FILE in "$RESULTS_DIR"/threads-*.txt; do
+    echo "$FILE: $(grep 'Requests/sec' "$FILE") | p99 $(grep '99%' "$FILE" | awk '{print $3, $4}')"
+done
+echo "--------------------------------------------------------"
@@ -0,0 +1,17 @@
+#! /bin/bash
+
+# Compares two result directories written by run-benchmarks.sh, e.g.
+#   ./compare-benchmarks.sh results/1a2b3c4 results/5d6e7f8
+# Prints the score of every benchmark/params pair in both runs and the relative change. Requires jq.
+
+set -e
+
+BASE_DIR="${1:?Usage: $0 <base-results-dir> <new-results-dir>}"
+NEW_DIR="${2:?Usage: $0 <base-results-dir> <new-results-dir>}"
+
+scores() {
+    jq -r '.[] | "\(.benchmark)\(if .params then "[" + ([.params | to_entries[] | "\(.key)=\(.value)"] | join(",")) + "]" else "" end)\t\(.primaryMetric.score)\t\(.primaryMetric.scoreUnit)"' "$1"/*.json | sort
+}
+
+join -t $'\t' <(scores "$BASE_DIR") <(scores "$NEW_DIR") | \
+    awk -F '\t' '{ printf "%-90s %14.3f %14.3f %-8s %+7.1f%%\n", $1, $2, $4, $3, ($4 - $2) * 100 / $2 }'
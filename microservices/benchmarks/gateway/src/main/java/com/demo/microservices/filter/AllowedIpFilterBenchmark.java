@@ -0,0 +1,80 @@
+package com.demo.microservices.filter;
+
+import com.demo.microservices.config.IpFilterConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AllowedIpFilter throughput for allowed clients, with allowlists of growing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class AllowedIpFilterBenchmark {
+
+    private static final GatewayFilterChain CHAIN = exchange -> Mono.empty();
+
+    @Param({"3", "1000"})
+    int allowlistSize;
+
+    private AllowedIpFilter filter;
+
+    @State(Scope.Thread)
+    public static class Exchanges {
+        MockServerWebExchange forwardedIpv4;
+        MockServerWebExchange remoteIpv6;
+
+        @Setup
+        public void setUp() {
+            forwardedIpv4 = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/inventory/products")
+                    .header("X-Forwarded-For", "10.20.30.40, 192.168.1.1")
+                    .remoteAddress(new InetSocketAddress("127.0.0.1", 40000)));
+            remoteIpv6 = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/inventory/products")
+                    .remoteAddress(new InetSocketAddress("2001:db8::42", 40000)));
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        List<String> allowedIps = new ArrayList<>(List.of("127.0.0.1", "::1", "10.20.0.0/16", "2001:db8::/32"));
+        for (int i = 0; allowedIps.size() < allowlistSize; i++) {
+            allowedIps.add("172." + (16 + i / 256 % 16) + "." + (i % 256) + ".0/24");
+        }
+        IpFilterConfig config = new IpFilterConfig();
+        config.setAllowedIps(allowedIps);
+        filter = new AllowedIpFilter(config);
+    }
+
+    @Benchmark
+    public Void forwardedIpv4(Exchanges exchanges) {
+        return filter.filter(exchanges.forwardedIpv4, CHAIN).block();
+    }
+
+    @Benchmark
+    public Void remoteIpv6(Exchanges exchanges) {
+        return filter.filter(exchanges.remoteIpv6, CHAIN).block();
+    }
+}
@@ -0,0 +1,77 @@
+package com.demo.microservices.filter;
+
+import com.demo.microservices.config.RateLimitConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * InmemoryRateLimitFilter under contention: every thread hitting one client key ("hot") versus each
+ * thread being its own client ("spread"). Limits are set high enough that requests are never rejected,
+ * so the response stays uncommitted and exchanges can be reused.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RateLimitFilterBenchmark {
+
+    private static final GatewayFilterChain CHAIN = exchange -> Mono.empty();
+    private static final AtomicInteger NEXT_CLIENT = new AtomicInteger(1);
+
+    private InmemoryRateLimitFilter filter;
+
+    @State(Scope.Thread)
+    public static class Exchanges {
+        MockServerWebExchange hotClient;
+        MockServerWebExchange ownClient;
+
+        @Setup
+        public void setUp() {
+            hotClient = exchangeFrom("10.0.0.1");
+            ownClient = exchangeFrom("10.1.0." + NEXT_CLIENT.getAndIncrement());
+        }
+
+        private static MockServerWebExchange exchangeFrom(String ip) {
+            return MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/inventory/products")
+                    .remoteAddress(new InetSocketAddress(ip, 40000)));
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setRequestsPerSecond(1_000_000_000);
+        config.setBurst(1_000_000);
+        filter = new InmemoryRateLimitFilter(config);
+    }
+
+    @Benchmark
+    public Void hotClient(Exchanges exchanges) {
+        return filter.filter(exchanges.hotClient, CHAIN).block();
+    }
+
+    @Benchmark
+    public Void spreadClients(Exchanges exchanges) {
+        return filter.filter(exchanges.ownClient, CHAIN).block();
+    }
+}
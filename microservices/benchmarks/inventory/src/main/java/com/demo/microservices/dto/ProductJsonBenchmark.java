@@ -0,0 +1,74 @@
+package com.demo.microservices.dto;
+
+import com.demo.microservices.model.Product;
+import com.demo.microservices.view.Views;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product JSON (de)serialization through the @JsonView projections used by InventoryController.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductJsonBenchmark {
+
+    private ObjectWriter basicWriter;
+    private ObjectWriter detailedWriter;
+    private ObjectReader reader;
+    private Product product;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Same view handling as Spring Boot's auto-configured mapper
+        ObjectMapper mapper = JsonMapper.builder()
+                .disable(MapperFeature.DEFAULT_VIEW_INCLUSION)
+                .build();
+        basicWriter = mapper.writerWithView(Views.Basic.class);
+        detailedWriter = mapper.writerWithView(Views.Detailed.class);
+        reader = mapper.readerFor(Product.class);
+
+        product = new Product();
+        product.setSku("EL-KB-001");
+        product.setName("Tactile Mechanical Keyboard");
+        product.setDescription("Premium 104-key board with brown switches.");
+        product.setPrice(12599);
+        product.setCurrency("INR");
+        product.setQuantity(85);
+        json = mapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] serializeBasicView() throws Exception {
+        return basicWriter.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] serializeDetailedView() throws Exception {
+        return detailedWriter.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public Product deserialize() throws Exception {
+        return reader.readValue(json);
+    }
+}
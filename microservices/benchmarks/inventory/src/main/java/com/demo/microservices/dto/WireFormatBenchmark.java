@@ -0,0 +1,121 @@
+package com.demo.microservices.dto;
+
+import com.demo.microservices.model.Product;
+import com.demo.microservices.view.Views;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON vs CBOR for the bodies of /stock/deduct and /product/{sku}: what inventory does per request
+ * (read the deduct lines, write the outcome or the product) with the same pre-built readers and writers
+ * the HTTP converters use. Payload sizes are reported next to the timings as the {@link PayloadSize} counters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"json", "cbor"})
+    public String format;
+
+    private ObjectReader deductReader;
+    private ObjectWriter successWriter;
+    private ObjectWriter errorWriter;
+    private ObjectWriter productWriter;
+    private ObjectReader productReader;
+
+    private byte[] deductBody;
+    private byte[] productBody;
+    private DeductSuccess success;
+    private DeductErrorResponse error;
+    private Product product;
+
+    @Setup
+    public void setUp() throws Exception {
+        JsonFactory factory = "cbor".equals(format) ? new CBORFactory() : new JsonFactory();
+        // Same view handling as Spring Boot's auto-configured mappers
+        ObjectMapper mapper = new ObjectMapper(factory).disable(MapperFeature.DEFAULT_VIEW_INCLUSION);
+        deductReader = mapper.readerFor(new TypeReference<List<DeductRequest>>() {
+        });
+        successWriter = mapper.writerFor(DeductSuccess.class);
+        errorWriter = mapper.writerFor(DeductErrorResponse.class);
+        productWriter = mapper.writerWithView(Views.Detailed.class).forType(Product.class);
+        productReader = mapper.readerFor(Product.class);
+
+        DeductRequest keyboard = new DeductRequest();
+        keyboard.setSku("EL-KB-001");
+        keyboard.setDeductQuantity(1);
+        DeductRequest mouse = new DeductRequest();
+        mouse.setSku("EL-MS-002");
+        mouse.setDeductQuantity(2);
+        deductBody = mapper.writeValueAsBytes(List.of(keyboard, mouse));
+
+        success = new DeductSuccess("DEDUCTION_COMMITTED");
+        error = new DeductErrorResponse("INSUFFICIENT_STOCK", "EL-MS-002");
+
+        product = new Product();
+        product.setSku("EL-KB-001");
+        product.setName("Tactile Mechanical Keyboard");
+        product.setDescription("Premium 104-key board with brown switches.");
+        product.setPrice(12599);
+        product.setCurrency("INR");
+        product.setQuantity(85);
+        productBody = productWriter.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] deductRoundTrip(PayloadSize size) throws Exception {
+        List<DeductRequest> lines = deductReader.readValue(deductBody);
+        byte[] body = lines.isEmpty() ? errorWriter.writeValueAsBytes(error) : successWriter.writeValueAsBytes(success);
+        size.requestBytes = deductBody.length;
+        size.responseBytes = body.length;
+        return body;
+    }
+
+    @Benchmark
+    public byte[] writeProduct(PayloadSize size) throws Exception {
+        byte[] body = productWriter.writeValueAsBytes(product);
+        size.responseBytes = body.length;
+        return body;
+    }
+
+    @Benchmark
+    public Product readProduct(PayloadSize size) throws Exception {
+        size.requestBytes = productBody.length;
+        return productReader.readValue(productBody);
+    }
+
+    /**
+     * Bytes on the wire for the last invocation. EVENTS counters are reported as-is rather than per second,
+     * so the result shows the body sizes of each format.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long requestBytes;
+        public long responseBytes;
+    }
+}
@@ -0,0 +1,78 @@
+package com.demo.microservices.service.impl;
+
+import com.demo.microservices.cache.ProductCache;
+import com.demo.microservices.config.ProductCacheProperties;
+import com.demo.microservices.dto.DeductRequest;
+import com.demo.microservices.dto.DeductSuccess;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InventroyServiceImpl.deductStock against an in-memory store: measures the service overhead
+ * (validation, per-SKU merging, cache updates) without a Mongo round trip. The basket never runs short,
+ * so the repository is not needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeductStockBenchmark {
+
+    @Param({"1", "5", "20"})
+    int basketSize;
+
+    private InMemoryInventoryStore store;
+    private InventroyServiceImpl service;
+    private List<DeductRequest> basket;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new InMemoryInventoryStore();
+        service = new InventroyServiceImpl();
+        service.productCache = new ProductCache(new ProductCacheProperties());
+
+        basket = new ArrayList<>(basketSize);
+        for (int i = 0; i < basketSize; i++) {
+            DeductRequest line = new DeductRequest();
+            line.setSku("SKU-" + i);
+            line.setDeductQuantity(1);
+            basket.add(line);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void restock() {
+        for (int i = 0; i < basketSize; i++) {
+            store.put("SKU-" + i, Integer.MAX_VALUE);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public DeductSuccess deductUncontended() {
+        return service.deductStock(basket, store::deductAll);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public DeductSuccess deductContended() {
+        return service.deductStock(basket, store::deductAll);
+    }
+}
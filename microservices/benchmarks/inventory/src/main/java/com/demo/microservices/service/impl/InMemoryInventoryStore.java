@@ -0,0 +1,46 @@
+package com.demo.microservices.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory stand-in for InventoryRepository.deductAll, handed to deductStock in place of the Mongo bulk write.
+ * Deductions are atomic per SKU and compensated on a shortfall, like the bulk write they replace.
+ */
+public class InMemoryInventoryStore {
+
+    private final ConcurrentMap<String, AtomicInteger> quantities = new ConcurrentHashMap<>();
+
+    public void put(String sku, int quantity) {
+        quantities.put(sku, new AtomicInteger(quantity));
+    }
+
+    public Optional<String> deductAll(Map<String, Integer> quantitiesBySku) {
+        List<Map.Entry<String, Integer>> applied = new ArrayList<>(quantitiesBySku.size());
+        for (Map.Entry<String, Integer> line : quantitiesBySku.entrySet()) {
+            AtomicInteger quantity = quantities.get(line.getKey());
+            if (quantity == null || !tryDeduct(quantity, line.getValue())) {
+                applied.forEach(done -> quantities.get(done.getKey()).addAndGet(done.getValue()));
+                return Optional.of(line.getKey());
+            }
+            applied.add(line);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean tryDeduct(AtomicInteger quantity, int amount) {
+        int current;
+        do {
+            current = quantity.get();
+            if (current < amount) {
+                return false;
+            }
+        } while (!quantity.compareAndSet(current, current - amount));
+        return true;
+    }
+}
@@ -0,0 +1,62 @@
+package com.demo.microservices.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PurchaseRequestJsonBenchmark {
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private PurchaseRequest request;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        writer = mapper.writerFor(PurchaseRequest.class);
+        reader = mapper.readerFor(PurchaseRequest.class);
+
+        List<ItemRequest> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ItemRequest item = new ItemRequest();
+            item.setSku("SKU-" + i);
+            item.setQuantity(i + 1);
+            items.add(item);
+        }
+        request = new PurchaseRequest();
+        request.setCardDetails("4111-1111-1111-1111");
+        request.setItems(items);
+        json = writer.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return writer.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public PurchaseRequest deserialize() throws Exception {
+        return reader.readValue(json);
+    }
+}
@@ -0,0 +1,54 @@
+package com.demo.microservices.service.impl;
+
+import com.demo.microservices.dto.ItemRequest;
+import com.demo.microservices.dto.PriceSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalculateTotalBenchmark {
+
+    @Param({"1", "5", "50"})
+    int items;
+
+    private List<ItemRequest> basket;
+    private Map<String, PriceSnapshot> prices;
+
+    @Setup
+    public void setUp() {
+        basket = new ArrayList<>(items);
+        prices = new HashMap<>();
+        for (int i = 0; i < items; i++) {
+            ItemRequest item = new ItemRequest();
+            item.setSku("SKU-" + i);
+            item.setQuantity(i % 5 + 1);
+            basket.add(item);
+            prices.put(item.getSku(), new PriceSnapshot(item.getSku(), 1_999L + i, "INR"));
+        }
+    }
+
+    @Benchmark
+    public PaymentServiceImpl.BasketTotal calculateTotal() {
+        return PaymentServiceImpl.calculateTotal(basket, prices);
+    }
+}
@@ -0,0 +1,26 @@
+#! /bin/bash
+
+# Runs every JMH suite and stores machine-readable (JSON) results per commit:
+#   results/<git-sha>/<suite>.json
+# Build first from the microservices directory: ./mvnw -Pbenchmarks package -DskipTests
+# Extra arguments are passed to JMH, e.g. ./run-benchmarks.sh -f 1 -wi 1 -i 3 'Deduct.*'
+
+set -e
+
+cd "$(dirname "$0")"
+
+SUITES=("inventory" "payment" "gateway")
+COMMIT="$(git rev-parse --short HEAD)"
+if ! git diff --quiet HEAD -- ..; then
+    COMMIT="${COMMIT}-dirty"
+fi
+RESULTS_DIR="results/${COMMIT}"
+
+mkdir -p "$RESULTS_DIR"
+
+for SUITE in "${SUITES[@]}"; do
+    echo "--- Running ${SUITE} benchmarks ---"
+    java -jar "${SUITE}/target/${SUITE}-benchmarks.jar" -rf json -rff "${RESULTS_DIR}/${SUITE}.json" "$@"
+done
+
+echo "✅ Results written to ${RESULTS_DIR}"
@@ -0,0 +1,101 @@
+package com.demo.microservices.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded multi-producer / single-consumer ring of preallocated, fixed-layout access log records.
+ * Producers claim a slot with CAS and publish it by writing its sequence; nothing is allocated per record.
+ * When the consumer falls behind by a full ring, new records are dropped instead of blocking requests.
+ */
+public class AccessLogRingBuffer {
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long consumed;
+
+    public AccessLogRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * @return false if the record was dropped because the ring is full
+     */
+    public boolean offer(long timestampMillis, String requestId, String method, String path,
+                         int status, long latencyNanos, String routeId, Object target) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) sequence & mask];
+        slot.timestampMillis = timestampMillis;
+        slot.requestId = requestId;
+        slot.method = method;
+        slot.path = path;
+        slot.status = status;
+        slot.latencyNanos = latencyNanos;
+        slot.routeId = routeId;
+        slot.target = target;
+        slot.published = sequence;
+        return true;
+    }
+
+    /**
+     * Hands every published record to the consumer, in order. Must only be called from one thread.
+     *
+     * @return number of records drained
+     */
+    public int drain(RecordConsumer consumer) {
+        long next = consumed;
+        int count = 0;
+        while (true) {
+            Slot slot = slots[(int) next & mask];
+            if (slot.published != next) {
+                break;
+            }
+            consumer.accept(slot.timestampMillis, slot.requestId, slot.method, slot.path,
+                    slot.status, slot.latencyNanos, slot.routeId, slot.target);
+            // Release references so drained requests can be collected
+            slot.requestId = null;
+            slot.path = null;
+            slot.target = null;
+            next++;
+            count++;
+            consumed = next;
+        }
+        return count;
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(long timestampMillis, String requestId, String method, String path,
+                    int status, long latencyNanos, String routeId, Object target);
+    }
+
+    private static final class Slot {
+        private volatile long published = -1;
+        private long timestampMillis;
+        private String requestId;
+        private String method;
+        private String path;
+        private int status;
+        private long latencyNanos;
+        private String routeId;
+        private Object target;
+    }
+}
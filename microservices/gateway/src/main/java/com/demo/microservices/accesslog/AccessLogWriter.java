@@ -0,0 +1,95 @@
+package com.demo.microservices.accesslog;
+
+import com.demo.microservices.config.AccessLogConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sampled, asynchronous access log. Request threads only copy a few fields into the ring buffer;
+ * a background thread formats the records and hands them to the "ACCESS_LOG" logger.
+ */
+@Component
+public class AccessLogWriter implements DisposableBean {
+
+    private static final Logger accessLog = LoggerFactory.getLogger("ACCESS_LOG");
+    private static final Logger log = LoggerFactory.getLogger(AccessLogWriter.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final AccessLogConfig config;
+    private final AccessLogRingBuffer buffer;
+    private final Thread flusher;
+    private final StringBuilder line = new StringBuilder(256);
+    private volatile boolean running = true;
+    private long reportedDrops;
+
+    public AccessLogWriter(AccessLogConfig config) {
+        this.config = config;
+        this.buffer = new AccessLogRingBuffer(config.getBufferSize());
+        this.flusher = new Thread(this::flushLoop, "access-log-writer");
+        this.flusher.setDaemon(true);
+        if (config.isEnabled()) {
+            this.flusher.start();
+        }
+    }
+
+    public void record(long timestampMillis, String requestId, String method, String path,
+                       int status, long latencyNanos, String routeId, Object target) {
+        if (!config.isEnabled() || !sampled(status)) {
+            return;
+        }
+        buffer.offer(timestampMillis, requestId, method, path, status, latencyNanos, routeId, target);
+    }
+
+    private boolean sampled(int status) {
+        double rate = config.getSampleRate();
+        return rate >= 1.0
+                || (config.isAlwaysLogErrors() && status >= 400)
+                || ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private void flushLoop() {
+        while (running) {
+            if (buffer.drain(this::write) == 0) {
+                reportDrops();
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        buffer.drain(this::write);
+    }
+
+    private void write(long timestampMillis, String requestId, String method, String path,
+                       int status, long latencyNanos, String routeId, Object target) {
+        line.setLength(0);
+        line.append("ts=").append(timestampMillis)
+                .append(" id=").append(requestId)
+                .append(" method=").append(method)
+                .append(" path=").append(path)
+                .append(" status=").append(status)
+                .append(" latency_us=").append(latencyNanos / 1_000)
+                .append(" route=").append(routeId)
+                .append(" target=").append(target);
+        accessLog.info(line.toString());
+    }
+
+    private void reportDrops() {
+        long dropped = buffer.droppedCount();
+        if (dropped != reportedDrops) {
+            log.warn("Access log buffer full: {} records dropped so far", dropped);
+            reportedDrops = dropped;
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join(TimeUnit.SECONDS.toMillis(1));
+    }
+}
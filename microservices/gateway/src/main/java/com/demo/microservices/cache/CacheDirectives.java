@@ -0,0 +1,60 @@
+package com.demo.microservices.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The Cache-Control directives the response cache acts on. Unknown directives are ignored.
+ */
+public record CacheDirectives(boolean noStore, boolean noCache, boolean isPrivate, Duration maxAge, Duration sharedMaxAge) {
+
+    private static final CacheDirectives NONE = new CacheDirectives(false, false, false, null, null);
+
+    public static CacheDirectives parse(List<String> headerValues) {
+        if (headerValues == null || headerValues.isEmpty()) {
+            return NONE;
+        }
+        boolean noStore = false;
+        boolean noCache = false;
+        boolean isPrivate = false;
+        Duration maxAge = null;
+        Duration sharedMaxAge = null;
+        for (String value : headerValues) {
+            for (String directive : value.split(",")) {
+                String[] parts = directive.trim().split("=", 2);
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                switch (name) {
+                    case "no-store" -> noStore = true;
+                    case "no-cache" -> noCache = true;
+                    case "private" -> isPrivate = true;
+                    case "max-age" -> maxAge = seconds(parts);
+                    case "s-maxage" -> sharedMaxAge = seconds(parts);
+                    default -> {
+                        // Not relevant to a shared cache that never serves stale responses
+                    }
+                }
+            }
+        }
+        return new CacheDirectives(noStore, noCache, isPrivate, maxAge, sharedMaxAge);
+    }
+
+    /**
+     * How long a shared cache may keep the response, or null when upstream did not say.
+     */
+    public Duration freshness() {
+        return sharedMaxAge != null ? sharedMaxAge : maxAge;
+    }
+
+    private static Duration seconds(String[] parts) {
+        if (parts.length < 2) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(parts[1].trim().replace("\"", ""))));
+        } catch (NumberFormatException e) {
+            // A malformed max-age makes the response stale (RFC 9111, 4.2.1)
+            return Duration.ZERO;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.demo.microservices.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * An upstream response as replayed to other clients: status, the shareable headers and the full body.
+ */
+public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, String eTag, long storedAtNanos) {
+
+    /**
+     * Whole seconds since the response was received, for the Age header.
+     */
+    public long ageSeconds() {
+        return (System.nanoTime() - storedAtNanos) / 1_000_000_000L;
+    }
+
+    /**
+     * Weak comparison against an If-None-Match value, as RFC 9110 requires for GET.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        String own = stripWeak(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripWeak(trimmed).equals(own)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,28 @@
+package com.demo.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "gateway.access-log")
+@Data
+public class AccessLogConfig {
+
+    private boolean enabled = true;
+
+    /**
+     * Fraction of requests written to the access log (0.0 - 1.0). Latency is recorded for every request.
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * Always log 4xx/5xx responses, regardless of sampling.
+     */
+    private boolean alwaysLogErrors = true;
+
+    /**
+     * Ring buffer capacity in records; rounded up to a power of two. Records are dropped (and counted) when full.
+     */
+    private int bufferSize = 8192;
+}
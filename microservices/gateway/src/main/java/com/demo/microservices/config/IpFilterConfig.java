@@ -4,6 +4,7 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -12,9 +13,20 @@ import java.util.List;
 public class IpFilterConfig {
 
     /**
-     * List of trusted IP addresses that are allowed to access the gateway routes.
+     * List of trusted IP addresses or CIDR ranges (IPv4 and IPv6) that are allowed to access the gateway routes.
      * All other IPs will be blocked.
      */
     private List<String> allowedIps;
+
+    /**
+     * Optional file with additional allowlist entries, one address or CIDR range per line ('#' starts a comment).
+     * It is re-read when it changes, so the allowlist can be updated without a restart.
+     */
+    private String allowlistFile;
+
+    /**
+     * How often the allowlist file is checked for changes.
+     */
+    private Duration reloadInterval = Duration.ofSeconds(30);
 }
 
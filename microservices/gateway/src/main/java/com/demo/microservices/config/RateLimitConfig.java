@@ -0,0 +1,53 @@
+package com.demo.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+@Data
+public class RateLimitConfig {
+
+    /**
+     * Default sustained rate allowed per client IP and route.
+     */
+    private int requestsPerSecond = 2;
+
+    /**
+     * Default number of requests a client may send back-to-back before the sustained rate applies.
+     */
+    private int burst = 5;
+
+    /**
+     * Upper bound on tracked (client, route) pairs; least recently used ones are dropped first.
+     */
+    private long maxTrackedClients = 100_000;
+
+    /**
+     * Clients idle for longer than this are forgotten. Should exceed the time a full burst takes to refill.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(1);
+
+    /**
+     * Per-route overrides keyed by gateway route id.
+     */
+    private Map<String, Limit> routes = new HashMap<>();
+
+    @Data
+    public static class Limit {
+        /**
+         * Sustained rate for the route; the default rate when unset.
+         */
+        private Integer requestsPerSecond;
+
+        /**
+         * Burst for the route; the default burst when unset.
+         */
+        private Integer burst;
+    }
+}
@@ -0,0 +1,57 @@
+package com.demo.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "gateway.response-cache")
+@Data
+public class ResponseCacheConfig {
+
+    /**
+     * Upper bound on cached response bytes across all routes; least recently used entries are dropped first.
+     */
+    private long maximumBytes = 64L * 1024 * 1024;
+
+    /**
+     * Larger responses are neither stored nor shared with concurrent identical requests; they stream through
+     * to the client that fetched them, and the gateway never buffers more than this per response.
+     */
+    private int maxEntryBytes = 1024 * 1024;
+
+    /**
+     * Upper bound on how long a response is kept, whatever max-age upstream sends.
+     */
+    private Duration maxTtl = Duration.ofMinutes(10);
+
+    /**
+     * Request headers that change the response, and so are part of the cache key.
+     */
+    private List<String> varyHeaders = new ArrayList<>(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING));
+
+    /**
+     * Cached paths per gateway route id. Routes not listed here are never cached.
+     */
+    private Map<String, RouteCache> routes = new HashMap<>();
+
+    @Data
+    public static class RouteCache {
+        /**
+         * Path patterns (e.g. /api/v1/inventory/product/{sku}) whose GET responses may be cached.
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * How long a response is kept when upstream sends no max-age.
+         */
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,32 @@
+package com.demo.microservices.controller;
+
+import com.demo.microservices.filter.ResponseCacheFilter;
+import com.demo.microservices.metrics.LatencySnapshot;
+import com.demo.microservices.metrics.ResponseCacheStats;
+import com.demo.microservices.metrics.RouteLatencyRecorder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/gateway/metrics")
+@RequiredArgsConstructor
+public class GatewayMetricsController {
+
+    private final RouteLatencyRecorder latencyRecorder;
+
+    private final ResponseCacheFilter responseCacheFilter;
+
+    @GetMapping("/latency")
+    public Map<String, LatencySnapshot> getRouteLatencies() {
+        return latencyRecorder.snapshot();
+    }
+
+    @GetMapping("/response-cache")
+    public ResponseCacheStats getResponseCacheStats() {
+        return responseCacheFilter.stats();
+    }
+}
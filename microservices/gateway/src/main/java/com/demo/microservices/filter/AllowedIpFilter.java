@@ -1,8 +1,10 @@
 package com.demo.microservices.filter;
 
 import com.demo.microservices.config.IpFilterConfig;
-import lombok.RequiredArgsConstructor;
+import com.demo.microservices.utils.IpAddressParser;
+import com.demo.microservices.utils.IpPrefixTrie;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
@@ -10,86 +12,155 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+
+import java.io.IOException;
 import java.net.InetAddress;
-import java.net.UnknownHostException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Global filter to restrict access based on the client's IP address.
- * Only IPs listed in IpFilterConfig are allowed to proceed to downstream services.
+ * Only IPs covered by the addresses/CIDR ranges in IpFilterConfig are allowed to proceed to downstream services.
+ * Entries are compiled once into a prefix trie, and client addresses are parsed straight into bytes
+ * (never through InetAddress.getByName, which may do a DNS lookup).
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
-public class AllowedIpFilter implements GlobalFilter, Ordered {
+public class AllowedIpFilter implements GlobalFilter, Ordered, DisposableBean {
+
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    // Reused per event-loop thread so parsing a client address allocates nothing
+    private static final ThreadLocal<byte[]> ADDRESS_BUFFER =
+            ThreadLocal.withInitial(() -> new byte[IpAddressParser.IPV6_LENGTH]);
 
     private final IpFilterConfig config;
-    private static final String CANONICAL_IPV6_LOOPBACK = "0:0:0:0:0:0:0:1";
-    private static final String SHORTHAND_IPV6_LOOPBACK = "::1";
+    private final Disposable reloader;
+    private volatile IpPrefixTrie allowlist;
+    private volatile long allowlistFileModified = -1;
+
+    public AllowedIpFilter(IpFilterConfig config) {
+        this.config = config;
+        this.allowlist = compileAllowlist();
+        this.reloader = config.getAllowlistFile() == null
+                ? null
+                : Flux.interval(config.getReloadInterval()).subscribe(tick -> reloadIfChanged());
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
 
-        String clientIp = extractAndNormalizeIp(request);
+        byte[] clientAddress = ADDRESS_BUFFER.get();
+        int length = extractClientAddress(request, clientAddress);
 
-        if (clientIp == null) {
+        if (length == IpAddressParser.INVALID) {
             // Block requests where IP cannot be determined for security
-            log.warn("Blocking request due to null IP address.");
+            log.warn("Blocking request due to unknown IP address: {}", describeClient(request));
             return this.rejectRequest(exchange, "IP_UNKNOWN");
         }
 
         // --- 2. Validate the IP ---
-        // Note: The normalization in extractAndNormalizeIp should ensure clientIp is in the expected format (127.0.0.1 or ::1)
-        List<String> allowedIps = config.getAllowedIps();
-        if (allowedIps == null || !allowedIps.contains(clientIp)) {
-            log.warn("Blocking unauthorized access from IP: {}", clientIp);
+        if (!allowlist.contains(clientAddress, length)) {
+            log.warn("Blocking unauthorized access from IP: {}", describeClient(request));
             return this.rejectRequest(exchange, "IP_NOT_AUTHORIZED");
         }
 
         // --- 3. Allow Access ---
-        log.debug("Access granted for IP: {}", clientIp);
+        if (log.isDebugEnabled()) {
+            log.debug("Access granted for IP: {}", describeClient(request));
+        }
         return chain.filter(exchange);
     }
 
     /**
-     * Extracts the client IP from the request (handling XFF header), 
-     * and normalizes IPv6 addresses to their shorthand form (e.g., ::1).
+     * Writes the client address (first X-Forwarded-For hop, else the remote address) into the buffer.
+     *
+     * @return the address length in bytes, or {@link IpAddressParser#INVALID}
      */
-    private String extractAndNormalizeIp(ServerHttpRequest request) {
-        String clientIp = null;
-
+    private int extractClientAddress(ServerHttpRequest request, byte[] buffer) {
         // 1. Check X-Forwarded-For header
-        String forwardedIp = request.getHeaders().getFirst("X-Forwarded-For");
-        if (forwardedIp != null) {
-            clientIp = forwardedIp.split(",")[0].trim();
+        String forwardedFor = request.getHeaders().getFirst(FORWARDED_FOR_HEADER);
+        if (forwardedFor != null) {
+            int end = forwardedFor.indexOf(',');
+            if (end < 0) {
+                end = forwardedFor.length();
+            }
+            int start = 0;
+            while (start < end && Character.isWhitespace(forwardedFor.charAt(start))) {
+                start++;
+            }
+            while (end > start && Character.isWhitespace(forwardedFor.charAt(end - 1))) {
+                end--;
+            }
+            return IpAddressParser.parse(forwardedFor, start, end, buffer);
         }
 
         // 2. Fallback to remote address
-        if (clientIp == null && request.getRemoteAddress() != null) {
-            clientIp = request.getRemoteAddress().getAddress().getHostAddress();
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return IpAddressParser.INVALID;
         }
+        byte[] raw = remoteAddress.getAddress().getAddress();
+        System.arraycopy(raw, 0, buffer, 0, raw.length);
+        return raw.length;
+    }
 
-        if (clientIp == null) {
-            return null;
+    private String describeClient(ServerHttpRequest request) {
+        String forwardedFor = request.getHeaders().getFirst(FORWARDED_FOR_HEADER);
+        if (forwardedFor != null) {
+            return forwardedFor;
         }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        InetAddress address = remoteAddress != null ? remoteAddress.getAddress() : null;
+        return address != null ? address.getHostAddress() : "null";
+    }
 
-        // --- 3. Critical Normalization Step ---
-        // A. Explicitly handle the canonical IPv6 loopback format
-        if (CANONICAL_IPV6_LOOPBACK.equals(clientIp)) {
-            return SHORTHAND_IPV6_LOOPBACK; // returns "::1"
+    private void reloadIfChanged() {
+        try {
+            long modified = Files.getLastModifiedTime(Path.of(config.getAllowlistFile())).toMillis();
+            if (modified != allowlistFileModified) {
+                allowlist = compileAllowlist();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Keep serving with the previous allowlist rather than locking everyone out
+            log.error("Failed to reload IP allowlist from {}: {}", config.getAllowlistFile(), e.getMessage());
         }
+    }
 
-        // B. General Normalization: Tries to normalize other IPv6 addresses (e.g., 2001:db8::1)
-        try {
-            // InetAddress.getHostAddress() often returns the shorthand (::1) for loopback, 
-            // but the explicit check above is safer for 0:0:0:0:0:0:0:1.
-            return InetAddress.getByName(clientIp).getHostAddress();
-        } catch (UnknownHostException e) {
-            // If parsing fails (e.g., it's a malformed IP), return the original IP string
-            return clientIp;
+    private IpPrefixTrie compileAllowlist() {
+        List<String> entries = new ArrayList<>();
+        if (config.getAllowedIps() != null) {
+            entries.addAll(config.getAllowedIps());
+        }
+        long modified = allowlistFileModified;
+        if (config.getAllowlistFile() != null) {
+            Path file = Path.of(config.getAllowlistFile());
+            try {
+                // Read before the contents, so an edit landing mid-read is picked up by the next check
+                modified = Files.getLastModifiedTime(file).toMillis();
+                for (String line : Files.readAllLines(file)) {
+                    int comment = line.indexOf('#');
+                    String entry = (comment < 0 ? line : line.substring(0, comment)).trim();
+                    if (!entry.isEmpty()) {
+                        entries.add(entry);
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read IP allowlist file " + file, e);
+            }
         }
+        IpPrefixTrie compiled = IpPrefixTrie.compile(entries);
+        // Only now: a file that failed to read or compile is tried again on the next check
+        allowlistFileModified = modified;
+        log.info("Loaded IP allowlist with {} entries", compiled.size());
+        return compiled;
     }
 
     private Mono<Void> rejectRequest(ServerWebExchange exchange, String reason) {
@@ -97,6 +168,13 @@ public class AllowedIpFilter implements GlobalFilter, Ordered {
         return exchange.getResponse().setComplete();
     }
 
+    @Override
+    public void destroy() {
+        if (reloader != null) {
+            reloader.dispose();
+        }
+    }
+
     @Override
     public int getOrder() {
         return -100; // High priority: runs very early
@@ -1,47 +1,55 @@
 package com.demo.microservices.filter;
 
+import com.demo.microservices.config.RateLimitConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.net.InetSocketAddress;
-import java.time.Duration;
-import java.time.Instant;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Custom Global Filter to enforce a simple IP-based rate limit
- * using an in-memory map (for local/testing environments without Redis).
- * * NOTE: This is NOT suitable for production or clustered environments.
+ * Custom Global Filter to enforce an IP-based rate limit per route using GCRA
+ * (the Generic Cell Rate Algorithm, equivalent to a token bucket) on in-memory state.
+ * Each (route, client IP) pair keeps a single "theoretical arrival time" updated with CAS,
+ * in a size-bounded map that forgets idle clients.
+ * * NOTE: Limits are per gateway instance; use a shared store for clustered environments.
  */
 @Component
 public class InmemoryRateLimitFilter implements GlobalFilter, Ordered {
 
     private static final Logger log = LoggerFactory.getLogger(InmemoryRateLimitFilter.class);
 
-    // In-memory map to store the last request time for each IP
-    private final ConcurrentMap<String, Instant> lastRequestTime = new ConcurrentHashMap<>();
+    static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    static final String RESET_HEADER = "X-RateLimit-Reset";
 
-    // Rate limit configuration loaded from application.properties/yml
-    @Value("${gateway.rate-limit.requests-per-second:2}")
-    private int requestsPerSecond;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final String DEFAULT_ROUTE = "default";
 
-    // Minimum delay between requests per client IP, calculated from the rate limit
-    private Duration minDelay;
+    private final RateLimitConfig config;
 
-    public InmemoryRateLimitFilter(@Value("${gateway.rate-limit.requests-per-second:2}") int requestsPerSecond) {
-        this.requestsPerSecond = requestsPerSecond;
-        // Calculate the minimum delay allowed between requests for one IP address
-        // Example: 2 requests/second -> min delay is 500 milliseconds (1000ms / 2)
-        this.minDelay = Duration.ofMillis(1000L / requestsPerSecond);
+    // Theoretical arrival time (System.nanoTime based) per "routeId|clientIp"
+    private final Cache<String, AtomicLong> arrivalTimes;
+
+    public InmemoryRateLimitFilter(RateLimitConfig config) {
+        this.config = config;
+        this.arrivalTimes = Caffeine.newBuilder()
+                .maximumSize(config.getMaxTrackedClients())
+                .expireAfterAccess(config.getIdleTimeout())
+                .build();
     }
 
     @Override
@@ -52,26 +60,55 @@ public class InmemoryRateLimitFilter implements GlobalFilter, Ordered {
             return chain.filter(exchange);
         }
 
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : DEFAULT_ROUTE;
+        RateLimitConfig.Limit routeLimit = config.getRoutes().get(routeId);
+        // An override may set just one of the two; the other comes from the defaults
+        int rate = routeLimit != null && routeLimit.getRequestsPerSecond() != null
+                ? routeLimit.getRequestsPerSecond() : config.getRequestsPerSecond();
+        int burst = Math.max(1, routeLimit != null && routeLimit.getBurst() != null ? routeLimit.getBurst() : config.getBurst());
+
+        long emissionInterval = NANOS_PER_SECOND / Math.max(1, rate);
+        long burstWindow = emissionInterval * burst;
+
         String clientIp = remoteAddress.getAddress().getHostAddress();
-        Instant now = Instant.now();
-        Instant lastTime = lastRequestTime.get(clientIp);
+        AtomicLong arrivalTime = arrivalTimes.get(routeId + '|' + clientIp, key -> new AtomicLong(System.nanoTime()));
+
+        long now = System.nanoTime();
+        long tat;
+        long newTat;
+        boolean allowed;
+        do {
+            tat = arrivalTime.get();
+            newTat = (tat - now < 0 ? now : tat) + emissionInterval;
+            allowed = newTat - now <= burstWindow;
+        } while (allowed && !arrivalTime.compareAndSet(tat, newTat));
 
-        // Check if rate limit is exceeded
-        if (lastTime != null && now.isBefore(lastTime.plus(minDelay))) {
-            log.warn("Rate limit exceeded for IP: {}. Denying request.", clientIp);
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        headers.set(LIMIT_HEADER, Integer.toString(burst));
 
+        if (!allowed) {
+            log.warn("Rate limit exceeded for IP: {} on route {}. Denying request.", clientIp, routeId);
+
+            headers.set(REMAINING_HEADER, "0");
+            headers.set(RESET_HEADER, Long.toString(toSecondsCeil(tat - now)));
+            headers.set(HttpHeaders.RETRY_AFTER, Long.toString(toSecondsCeil(newTat - now - burstWindow)));
             // Set HTTP 429 Too Many Requests status
             exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
             return exchange.getResponse().setComplete(); // Complete the response early
         }
 
-        // Update the last request time for this IP
-        lastRequestTime.put(clientIp, now);
+        headers.set(REMAINING_HEADER, Long.toString((burstWindow - (newTat - now)) / emissionInterval));
+        headers.set(RESET_HEADER, Long.toString(toSecondsCeil(newTat - now)));
 
         // Continue the filter chain
         return chain.filter(exchange);
     }
 
+    private static long toSecondsCeil(long nanos) {
+        return Math.max(0, (nanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+    }
+
     @Override
     public int getOrder() {
         // Run this filter before routing and other main business logic filters
@@ -1,68 +1,63 @@
 package com.demo.microservices.filter;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.demo.microservices.accesslog.AccessLogWriter;
+import com.demo.microservices.metrics.RouteLatencyRecorder;
+import lombok.RequiredArgsConstructor;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.Instant;
-
 /**
- * Global Filter to log request, response details, and latency for every incoming request.
+ * Global Filter to record latency and an access log entry for every incoming request.
+ * Latency goes into per-route histograms; log records are handed to the asynchronous
+ * AccessLogWriter, so no formatting or I/O happens on the request path.
  */
 @Component
+@RequiredArgsConstructor
 public class LoggingGlobalFilter implements GlobalFilter, Ordered {
 
-    private static final Logger log = LoggerFactory.getLogger(LoggingGlobalFilter.class);
-    private static final String START_TIME = "startTime";
+    private static final String UNKNOWN_ROUTE = "N/A";
+
+    private final AccessLogWriter accessLogWriter;
+    private final RouteLatencyRecorder latencyRecorder;
 
     /**
      * Executes the filter logic.
-     * 1. Logs request details and captures start time before routing.
-     * 2. Logs response details and calculates latency after the request returns.
+     * 1. Captures the start time before routing.
+     * 2. Records latency and the access log entry once the request completes (successfully or not).
      */
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        ServerHttpRequest request = exchange.getRequest();
-
-        // --- PRE-ROUTING LOGGING ---
-
-        // Store the start time in the exchange attributes
-        exchange.getAttributes().put(START_TIME, Instant.now());
-
-        log.info("GATEWAY REQUEST | ID: {} | Method: {} | URI: {} | Host: {}",
-                request.getId(),
-                request.getMethod(),
-                request.getURI(),
-                request.getRemoteAddress());
+        long startNanos = System.nanoTime();
 
         // Continue the filter chain (route to downstream service)
-        return chain.filter(exchange).then(Mono.fromRunnable(() -> {
-            // --- POST-ROUTING LOGGING ---
-
-            ServerHttpResponse response = exchange.getResponse();
-            Instant endTime = Instant.now();
-            Instant startTime = exchange.getAttribute(START_TIME);
+        return chain.filter(exchange).doFinally(signal -> {
+            long latencyNanos = System.nanoTime() - startNanos;
 
-            long latency = 0;
-            if (startTime != null) {
-                latency = endTime.toEpochMilli() - startTime.toEpochMilli();
-            }
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : UNKNOWN_ROUTE;
+            latencyRecorder.record(routeId, latencyNanos);
 
-            log.info("GATEWAY RESPONSE | ID: {} | Status: {} | Latency: {}ms | Service: {}",
+            ServerHttpRequest request = exchange.getRequest();
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            accessLogWriter.record(
+                    System.currentTimeMillis(),
                     request.getId(),
-                    response.getStatusCode(),
-                    latency,
-                    // We can try to infer the service URI/ID if we were using the discovery locator,
-                    // but for static routing, we log the destination URI for context.
-                    exchange.getAttributeOrDefault("uri", "N/A"));
-        }));
+                    request.getMethod().name(),
+                    request.getPath().value(),
+                    status != null ? status.value() : 0,
+                    latencyNanos,
+                    routeId,
+                    // For static routing, the destination URI gives the downstream context.
+                    exchange.getAttributeOrDefault(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, UNKNOWN_ROUTE));
+        });
     }
 
     /**
@@ -74,4 +69,3 @@ public class LoggingGlobalFilter implements GlobalFilter, Ordered {
         return Ordered.HIGHEST_PRECEDENCE;
     }
 }
-
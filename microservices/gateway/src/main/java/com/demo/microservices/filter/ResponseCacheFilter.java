@@ -0,0 +1,368 @@
+package com.demo.microservices.filter;
+
+import com.demo.microservices.cache.CacheDirectives;
+import com.demo.microservices.cache.CachedResponse;
+import com.demo.microservices.config.ResponseCacheConfig;
+import com.demo.microservices.metrics.ResponseCacheStats;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Global filter that caches GET responses of the configured route paths in a size-bounded in-memory cache.
+ * Entries are keyed on route, path, query and the configured vary headers, and kept for upstream's
+ * s-maxage/max-age or the route's TTL. Responses marked no-store, no-cache or private are not stored.
+ * Concurrent misses for one key are coalesced: the first request goes upstream and the others wait for
+ * its response, so a burst on a cold key costs a single upstream call. Every replayed response carries
+ * an ETag (upstream's, or a body hash), and a matching If-None-Match is answered with 304.
+ * * NOTE: The cache is per gateway instance, and catalog changes show up only once the entry expires.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private static final String HIT = "HIT";
+    private static final String MISS = "MISS";
+    private static final String COALESCED = "COALESCED";
+
+    // Only upstream headers that describe the representation; per-client ones (rate limits, cookies) are never replayed
+    private static final List<String> STORED_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING,
+            HttpHeaders.CONTENT_LANGUAGE, HttpHeaders.CACHE_CONTROL, HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED,
+            HttpHeaders.VARY);
+
+    private final ResponseCacheConfig config;
+    private final Map<String, List<PathPattern>> cachedPaths = new HashMap<>();
+    private final Cache<String, StoredResponse> cache;
+    private final ConcurrentMap<String, Mono<Optional<CachedResponse>>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    public ResponseCacheFilter(ResponseCacheConfig config) {
+        this.config = config;
+        config.getRoutes().forEach((routeId, routeCache) -> cachedPaths.put(routeId,
+                routeCache.getPaths().stream().map(PathPatternParser.defaultInstance::parse).toList()));
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(config.getMaximumBytes())
+                .weigher((String key, StoredResponse stored) -> key.length() + stored.response().body().length)
+                .expireAfter(new Expiry<String, StoredResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, StoredResponse stored, long currentTime) {
+                        return stored.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, StoredResponse stored, long currentTime, long currentDuration) {
+                        return stored.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, StoredResponse stored, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null || request.getMethod() != HttpMethod.GET
+                || !isCachedPath(route.getId(), request.getPath().pathWithinApplication())) {
+            return chain.filter(exchange);
+        }
+
+        HttpHeaders requestHeaders = request.getHeaders();
+        CacheDirectives requested = CacheDirectives.parse(requestHeaders.get(HttpHeaders.CACHE_CONTROL));
+        if (requested.noStore() || requested.noCache() || requestHeaders.containsKey(HttpHeaders.AUTHORIZATION)) {
+            bypassed.increment();
+            return chain.filter(exchange);
+        }
+
+        String ifNoneMatch = requestHeaders.getFirst(HttpHeaders.IF_NONE_MATCH);
+        String key = cacheKey(route.getId(), request);
+        StoredResponse stored = cache.getIfPresent(key);
+        if (stored != null) {
+            hits.increment();
+            return replay(exchange.getResponse(), stored.response(), ifNoneMatch, HIT);
+        }
+
+        Sinks.One<Optional<CachedResponse>> sink = Sinks.one();
+        Mono<Optional<CachedResponse>> shared = sink.asMono();
+        Mono<Optional<CachedResponse>> leader = inFlight.putIfAbsent(key, shared);
+        if (leader != null) {
+            coalesced.increment();
+            // An unshareable or failed leader response leaves each waiter to go upstream itself
+            return leader.flatMap(response -> response.isPresent()
+                    ? replay(exchange.getResponse(), response.get(), ifNoneMatch, COALESCED)
+                    : chain.filter(exchange));
+        }
+
+        misses.increment();
+        ServerWebExchange upstream = exchange.mutate()
+                // The shared response must be the full one, whatever this client already holds
+                .request(builder -> builder.headers(headers -> {
+                    headers.remove(HttpHeaders.IF_NONE_MATCH);
+                    headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+                }))
+                .response(new CapturingResponse(exchange.getResponse(), route.getId(), key, ifNoneMatch, sink, shared))
+                .build();
+        return chain.filter(upstream)
+                .doFinally(signal -> {
+                    if (inFlight.remove(key, shared)) {
+                        // Failed, cancelled or never wrote a body
+                        sink.tryEmitValue(Optional.empty());
+                    }
+                });
+    }
+
+    public ResponseCacheStats stats() {
+        return new ResponseCacheStats(
+                cache.estimatedSize(),
+                cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L),
+                hits.sum(),
+                misses.sum(),
+                coalesced.sum(),
+                notModified.sum(),
+                bypassed.sum());
+    }
+
+    private boolean isCachedPath(String routeId, PathContainer path) {
+        List<PathPattern> patterns = cachedPaths.get(routeId);
+        if (patterns == null) {
+            return false;
+        }
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String cacheKey(String routeId, ServerHttpRequest request) {
+        StringBuilder key = new StringBuilder(routeId).append(' ').append(request.getURI().getRawPath());
+        String query = request.getURI().getRawQuery();
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        HttpHeaders headers = request.getHeaders();
+        for (String header : config.getVaryHeaders()) {
+            List<String> values = headers.get(header);
+            key.append('\n').append(header).append(':');
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Writes a captured response to a client, or a bodiless 304 when the client already holds it.
+     */
+    private Mono<Void> replay(ServerHttpResponse response, CachedResponse cached, String ifNoneMatch, String cacheStatus) {
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.headers());
+        headers.set(CACHE_STATUS_HEADER, cacheStatus);
+        if (HIT.equals(cacheStatus)) {
+            headers.set(HttpHeaders.AGE, Long.toString(cached.ageSeconds()));
+        }
+        if (cached.status() == HttpStatus.OK && cached.matches(ifNoneMatch)) {
+            notModified.increment();
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    /**
+     * Decides how long the response may be stored; null when it must not be.
+     */
+    private Duration ttl(String routeId, CachedResponse response, CacheDirectives directives) {
+        if (response.status() != HttpStatus.OK || directives.noCache()
+                || response.body().length > config.getMaxEntryBytes() || !varyCovered(response.headers())) {
+            return null;
+        }
+        Duration ttl = directives.freshness() != null ? directives.freshness() : config.getRoutes().get(routeId).getTtl();
+        if (ttl.compareTo(config.getMaxTtl()) > 0) {
+            ttl = config.getMaxTtl();
+        }
+        return ttl.isZero() || ttl.isNegative() ? null : ttl;
+    }
+
+    /**
+     * Upstream may vary the response on headers the key does not include; such responses are not stored.
+     */
+    private boolean varyCovered(HttpHeaders headers) {
+        for (String vary : headers.getVary()) {
+            if (vary.equals("*") || config.getVaryHeaders().stream().noneMatch(vary::equalsIgnoreCase)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String bodyETag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // Must decorate the response before NettyWriteResponseFilter writes the upstream body into it
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    /**
+     * Response of the coalescing leader: buffers the upstream body, hands it to waiting requests and the
+     * cache, then writes it to this client. A body larger than max-entry-bytes is not buffered beyond the
+     * limit; it streams through to this client and the waiters go upstream themselves.
+     */
+    private class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final String routeId;
+        private final String key;
+        private final String ifNoneMatch;
+        private final Sinks.One<Optional<CachedResponse>> sink;
+        private final Mono<Optional<CachedResponse>> shared;
+
+        CapturingResponse(ServerHttpResponse delegate, String routeId, String key, String ifNoneMatch,
+                          Sinks.One<Optional<CachedResponse>> sink, Mono<Optional<CachedResponse>> shared) {
+            super(delegate);
+            this.routeId = routeId;
+            this.key = key;
+            this.ifNoneMatch = ifNoneMatch;
+            this.sink = sink;
+            this.shared = shared;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            int limit = config.getMaxEntryBytes();
+            if (getDelegate().getHeaders().getContentLength() > limit) {
+                return streamThrough(body);
+            }
+            // One list with the whole body, or one up to the part that passes the limit and then a list per part
+            long[] size = {0};
+            return Flux.<DataBuffer>from(body)
+                    .bufferUntil(part -> (size[0] += part.readableByteCount()) > limit)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .switchOnFirst((first, parts) -> size[0] > limit
+                            ? streamThrough(parts.concatMapIterable(Function.identity()))
+                            : parts.next().map(ResponseCacheFilter::toBytes).defaultIfEmpty(new byte[0]).flatMap(this::share))
+                    .then();
+        }
+
+        private Mono<Void> streamThrough(Publisher<? extends DataBuffer> body) {
+            if (inFlight.remove(key, shared)) {
+                sink.tryEmitValue(Optional.empty());
+            }
+            getDelegate().getHeaders().set(CACHE_STATUS_HEADER, MISS);
+            return getDelegate().writeWith(body);
+        }
+
+        private Mono<Void> share(byte[] bytes) {
+            CachedResponse response = capture(bytes);
+            CacheDirectives directives = CacheDirectives.parse(response.headers().get(HttpHeaders.CACHE_CONTROL));
+            boolean shareable = !directives.noStore() && !directives.isPrivate();
+            if (shareable) {
+                Duration ttl = ttl(routeId, response, directives);
+                if (ttl != null) {
+                    cache.put(key, new StoredResponse(response, ttl));
+                }
+            }
+            if (inFlight.remove(key, shared)) {
+                sink.tryEmitValue(shareable ? Optional.of(response) : Optional.empty());
+            }
+            return replay(getDelegate(), response, ifNoneMatch, MISS);
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMapSequential(part -> part));
+        }
+
+        private CachedResponse capture(byte[] body) {
+            HttpHeaders upstreamHeaders = getDelegate().getHeaders();
+            HttpHeaders stored = new HttpHeaders();
+            for (String header : STORED_HEADERS) {
+                List<String> values = upstreamHeaders.get(header);
+                if (values != null) {
+                    stored.put(header, List.copyOf(values));
+                }
+            }
+            String eTag = stored.getETag();
+            if (eTag == null) {
+                eTag = bodyETag(body);
+                stored.setETag(eTag);
+            }
+            HttpStatusCode status = getDelegate().getStatusCode() != null ? getDelegate().getStatusCode() : HttpStatus.OK;
+            return new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(stored), body, eTag, System.nanoTime());
+        }
+    }
+
+    private static byte[] toBytes(List<DataBuffer> parts) {
+        byte[] bytes = new byte[parts.stream().mapToInt(DataBuffer::readableByteCount).sum()];
+        int offset = 0;
+        for (DataBuffer part : parts) {
+            int length = part.readableByteCount();
+            part.read(bytes, offset, length);
+            offset += length;
+            DataBufferUtils.release(part);
+        }
+        return bytes;
+    }
+
+    private record StoredResponse(CachedResponse response, Duration ttl) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.demo.microservices.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LatencySnapshot {
+    private long count;
+    private double p50Millis;
+    private double p99Millis;
+    private double p999Millis;
+}
@@ -0,0 +1,18 @@
+package com.demo.microservices.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ResponseCacheStats {
+    private long entries;
+    private long weightedBytes;
+    private long hits;
+    private long misses;
+    // Requests that waited for an identical in-flight upstream call instead of making their own
+    private long coalesced;
+    private long notModified;
+    // Requests that opted out with Cache-Control or carried credentials
+    private long bypassed;
+}
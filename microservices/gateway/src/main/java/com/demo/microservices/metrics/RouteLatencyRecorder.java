@@ -0,0 +1,39 @@
+package com.demo.microservices.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps one latency histogram per gateway route (bounded by the number of configured routes).
+ */
+@Component
+public class RouteLatencyRecorder {
+
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    public void record(String routeId, long latencyNanos) {
+        LatencyHistogram histogram = histograms.get(routeId);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(routeId, id -> new LatencyHistogram());
+        }
+        histogram.record(latencyNanos);
+    }
+
+    public Map<String, LatencySnapshot> snapshot() {
+        Map<String, LatencySnapshot> snapshot = new TreeMap<>();
+        histograms.forEach((routeId, histogram) -> snapshot.put(routeId, new LatencySnapshot(
+                histogram.count(),
+                toMillis(histogram.valueAtQuantile(0.5)),
+                toMillis(histogram.valueAtQuantile(0.99)),
+                toMillis(histogram.valueAtQuantile(0.999)))));
+        return snapshot;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
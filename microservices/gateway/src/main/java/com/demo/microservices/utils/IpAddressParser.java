@@ -0,0 +1,153 @@
+package com.demo.microservices.utils;
+
+/**
+ * Allocation-free parser for textual IPv4/IPv6 literals into raw address bytes.
+ * Unlike InetAddress.getByName it never falls back to a DNS lookup.
+ */
+public final class IpAddressParser {
+
+    public static final int IPV4_LENGTH = 4;
+    public static final int IPV6_LENGTH = 16;
+    public static final int INVALID = -1;
+
+    private IpAddressParser() {
+    }
+
+    /**
+     * Parses {@code text[start, end)} into {@code out} (at least 16 bytes long).
+     * IPv4-mapped IPv6 addresses (::ffff:a.b.c.d) are returned as IPv4.
+     *
+     * @return {@link #IPV4_LENGTH}, {@link #IPV6_LENGTH} or {@link #INVALID}
+     */
+    public static int parse(CharSequence text, int start, int end, byte[] out) {
+        if (end - start >= 2 && text.charAt(start) == '[' && text.charAt(end - 1) == ']') {
+            start++;
+            end--;
+        }
+        if (start >= end) {
+            return INVALID;
+        }
+        boolean ipv6 = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == ':') {
+                ipv6 = true;
+            } else if (c == '%') {
+                // Drop the zone id (fe80::1%eth0)
+                end = i;
+            }
+        }
+        if (!ipv6) {
+            return parseIpv4(text, start, end, out, 0) ? IPV4_LENGTH : INVALID;
+        }
+        if (!parseIpv6(text, start, end, out)) {
+            return INVALID;
+        }
+        if (isIpv4Mapped(out)) {
+            System.arraycopy(out, 12, out, 0, IPV4_LENGTH);
+            return IPV4_LENGTH;
+        }
+        return IPV6_LENGTH;
+    }
+
+    private static boolean parseIpv4(CharSequence text, int start, int end, byte[] out, int offset) {
+        int octets = 0;
+        int i = start;
+        while (i < end) {
+            int value = 0;
+            int digits = 0;
+            while (i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+                value = value * 10 + (text.charAt(i) - '0');
+                if (++digits > 3 || value > 255) {
+                    return false;
+                }
+                i++;
+            }
+            if (digits == 0 || octets == 4) {
+                return false;
+            }
+            out[offset + octets++] = (byte) value;
+            if (i < end) {
+                if (text.charAt(i) != '.' || i == end - 1) {
+                    return false;
+                }
+                i++;
+            }
+        }
+        return octets == 4;
+    }
+
+    private static boolean parseIpv6(CharSequence text, int start, int end, byte[] out) {
+        int words = 0;
+        int compressedAt = -1;
+        int i = start;
+        if (end - start >= 2 && text.charAt(i) == ':' && text.charAt(i + 1) == ':') {
+            compressedAt = 0;
+            i += 2;
+        }
+        while (i < end) {
+            if (words == 8) {
+                return false;
+            }
+            int groupStart = i;
+            int value = 0;
+            int digits = 0;
+            int hex;
+            while (i < end && (hex = Character.digit(text.charAt(i), 16)) >= 0) {
+                value = (value << 4) | hex;
+                i++;
+                digits++;
+            }
+            if (i < end && text.charAt(i) == '.') {
+                // Embedded IPv4 tail, e.g. ::ffff:192.168.1.10
+                if (words > 6 || !parseIpv4(text, groupStart, end, out, words * 2)) {
+                    return false;
+                }
+                words += 2;
+                break;
+            }
+            if (digits == 0 || digits > 4) {
+                return false;
+            }
+            out[words * 2] = (byte) (value >>> 8);
+            out[words * 2 + 1] = (byte) value;
+            words++;
+            if (i == end) {
+                break;
+            }
+            if (text.charAt(i) != ':' || ++i == end) {
+                return false;
+            }
+            if (text.charAt(i) == ':') {
+                if (compressedAt >= 0) {
+                    return false;
+                }
+                compressedAt = words;
+                i++;
+            }
+        }
+        if (compressedAt < 0) {
+            return words == 8;
+        }
+        if (words == 8) {
+            return false;
+        }
+        // Move the words after "::" to the end and zero-fill the gap
+        int tail = words - compressedAt;
+        int gap = 8 - words;
+        System.arraycopy(out, compressedAt * 2, out, (compressedAt + gap) * 2, tail * 2);
+        for (int b = compressedAt * 2; b < (compressedAt + gap) * 2; b++) {
+            out[b] = 0;
+        }
+        return true;
+    }
+
+    private static boolean isIpv4Mapped(byte[] address) {
+        for (int b = 0; b < 10; b++) {
+            if (address[b] != 0) {
+                return false;
+            }
+        }
+        return address[10] == (byte) 0xff && address[11] == (byte) 0xff;
+    }
+}
@@ -0,0 +1,107 @@
+package com.demo.microservices.utils;
+
+import java.util.Collection;
+
+/**
+ * Immutable binary prefix trie over raw address bits, holding IPv4 and IPv6 CIDR ranges.
+ * Lookups walk at most 32 (IPv4) or 128 (IPv6) nodes regardless of how many ranges are stored.
+ */
+public final class IpPrefixTrie {
+
+    private final Node ipv4Root = new Node();
+    private final Node ipv6Root = new Node();
+    private final int size;
+
+    private IpPrefixTrie(Collection<String> entries) {
+        byte[] buffer = new byte[IpAddressParser.IPV6_LENGTH];
+        for (String entry : entries) {
+            insert(entry.trim(), buffer);
+        }
+        this.size = entries.size();
+    }
+
+    /**
+     * Compiles plain addresses ("10.0.0.1", "::1") and CIDR ranges ("10.0.0.0/8", "2001:db8::/32").
+     *
+     * @throws IllegalArgumentException if an entry is not a valid address or range
+     */
+    public static IpPrefixTrie compile(Collection<String> entries) {
+        return new IpPrefixTrie(entries);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param address raw address bytes as produced by {@link IpAddressParser#parse}
+     * @param length  4 for IPv4, 16 for IPv6
+     */
+    public boolean contains(byte[] address, int length) {
+        Node node = length == IpAddressParser.IPV4_LENGTH ? ipv4Root : ipv6Root;
+        int bits = length * 8;
+        for (int bit = 0; ; bit++) {
+            if (node.terminal) {
+                return true;
+            }
+            if (bit == bits) {
+                return false;
+            }
+            node = bitAt(address, bit) == 0 ? node.zero : node.one;
+            if (node == null) {
+                return false;
+            }
+        }
+    }
+
+    private void insert(String entry, byte[] buffer) {
+        int slash = entry.indexOf('/');
+        int end = slash < 0 ? entry.length() : slash;
+        int length = IpAddressParser.parse(entry, 0, end, buffer);
+        if (length == IpAddressParser.INVALID) {
+            throw new IllegalArgumentException("Invalid allowlist entry: " + entry);
+        }
+        int bits = length * 8;
+        int prefix = bits;
+        if (slash >= 0) {
+            try {
+                prefix = Integer.parseInt(entry.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid prefix length in allowlist entry: " + entry, e);
+            }
+            // IPv4-mapped IPv6 ranges are stored as IPv4
+            if (length == IpAddressParser.IPV4_LENGTH && entry.lastIndexOf(':', end) >= 0) {
+                prefix -= 96;
+            }
+            if (prefix < 0 || prefix > bits) {
+                throw new IllegalArgumentException("Invalid prefix length in allowlist entry: " + entry);
+            }
+        }
+
+        Node node = length == IpAddressParser.IPV4_LENGTH ? ipv4Root : ipv6Root;
+        for (int bit = 0; bit < prefix; bit++) {
+            if (bitAt(buffer, bit) == 0) {
+                if (node.zero == null) {
+                    node.zero = new Node();
+                }
+                node = node.zero;
+            } else {
+                if (node.one == null) {
+                    node.one = new Node();
+                }
+                node = node.one;
+            }
+        }
+        node.terminal = true;
+    }
+
+    private static int bitAt(byte[] address, int bit) {
+        return (address[bit >>> 3] >>> (7 - (bit & 7))) & 1;
+    }
+
+    private static final class Node {
+        private Node zero;
+        private Node one;
+        private boolean terminal;
+    }
+}
@@ -0,0 +1,174 @@
+package com.demo.microservices.batching;
+
+import com.demo.microservices.config.DeductBatchingProperties;
+import com.demo.microservices.repository.InventoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for stock deductions: concurrent deductions are gathered for a short window, merged per
+ * SKU and written as one unordered bulk of conditional decrements, instead of one bulk write each.
+ * When every merged line applies, every deduction in the batch succeeded. When some SKU could not cover
+ * the batch's combined demand, the deductions that touch it are given back and re-run one by one in
+ * arrival order through {@link InventoryRepository#deductAll}, so each still succeeds or fails as a whole,
+ * exactly as if the batch had run sequentially.
+ */
+@Component
+@ConditionalOnProperty(prefix = "inventory.deduct-batching", name = "enabled", havingValue = "true")
+@Slf4j
+public class DeductionBatcher implements DisposableBean {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final InventoryRepository repository;
+    private final DeductBatchingProperties properties;
+    private final BlockingQueue<Pending> queue;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public DeductionBatcher(InventoryRepository repository, DeductBatchingProperties properties) {
+        this.repository = repository;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.flusher = new Thread(this::flushLoop, "deduction-batcher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Same contract as {@link InventoryRepository#deductAll}; blocks until the batch holding this
+     * deduction has been written.
+     *
+     * @return the SKU that could not be deducted, or empty when the whole basket was committed
+     */
+    public Optional<String> deduct(Map<String, Integer> quantitiesBySku) {
+        if (quantitiesBySku.isEmpty()) {
+            return Optional.empty();
+        }
+        Pending pending = new Pending(quantitiesBySku, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            // Back-pressure: the flusher is behind, so this caller pays for its own write
+            return repository.deductAll(quantitiesBySku);
+        }
+        try {
+            // Not interruptible on purpose: once queued, the deduction may be applied either way
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(properties.getMaxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + properties.getWindow().toNanos();
+                while (batch.size() < properties.getMaxBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Deduction batch of {} failed: {}", batch.size(), e.getMessage(), e);
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        if (batch.size() == 1) {
+            Pending only = batch.get(0);
+            only.result().complete(repository.deductAll(only.quantitiesBySku()));
+            return;
+        }
+
+        Map<String, Long> demand = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            pending.quantitiesBySku().forEach((sku, quantity) -> demand.merge(sku, (long) quantity, Long::sum));
+        }
+        Map<String, Integer> merged = new LinkedHashMap<>();
+        Set<String> failed = new HashSet<>();
+        demand.forEach((sku, total) -> {
+            if (total > Integer.MAX_VALUE) {
+                // More than any stock level can hold; settle this SKU's deductions one by one
+                failed.add(sku);
+            } else {
+                merged.put(sku, (int) (long) total);
+            }
+        });
+
+        failed.addAll(repository.deductEach(merged));
+        if (failed.isEmpty()) {
+            batch.forEach(pending -> pending.result().complete(Optional.empty()));
+            log.debug("Committed {} deductions over {} SKUs in one bulk write", batch.size(), merged.size());
+            return;
+        }
+
+        List<Pending> contended = new ArrayList<>();
+        Map<String, Integer> giveBack = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            if (pending.quantitiesBySku().keySet().stream().noneMatch(failed::contains)) {
+                pending.result().complete(Optional.empty());
+                continue;
+            }
+            contended.add(pending);
+            pending.quantitiesBySku().forEach((sku, quantity) -> {
+                if (!failed.contains(sku)) {
+                    giveBack.merge(sku, quantity, Integer::sum);
+                }
+            });
+        }
+        repository.restoreStock(giveBack);
+        log.debug("{} of {} batched deductions touch SKUs short of the combined demand {}; settling them one by one",
+                contended.size(), batch.size(), failed);
+
+        for (Pending pending : contended) {
+            try {
+                pending.result().complete(repository.deductAll(pending.quantitiesBySku()));
+            } catch (RuntimeException e) {
+                pending.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private record Pending(Map<String, Integer> quantitiesBySku, CompletableFuture<Optional<String>> result) {
+    }
+}
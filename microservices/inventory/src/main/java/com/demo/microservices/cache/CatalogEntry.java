@@ -0,0 +1,39 @@
+package com.demo.microservices.cache;
+
+import com.demo.microservices.model.Product;
+import lombok.Value;
+import lombok.With;
+
+/**
+ * Static catalog fields of a product. Stock quantity is cached separately so deductions don't evict it.
+ */
+@Value
+public class CatalogEntry {
+    String id;
+    String sku;
+    @With
+    String name;
+    @With
+    String description;
+    @With
+    long price;
+    @With
+    String currency;
+
+    public static CatalogEntry of(Product product) {
+        return new CatalogEntry(product.getId(), product.getSku(), product.getName(),
+                product.getDescription(), product.getPrice(), product.getCurrency());
+    }
+
+    public Product toProduct(int quantity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setSku(sku);
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(price);
+        product.setCurrency(currency);
+        product.setQuantity(quantity);
+        return product;
+    }
+}
@@ -0,0 +1,223 @@
+package com.demo.microservices.cache;
+
+import com.demo.microservices.config.ProductCacheProperties;
+import com.demo.microservices.dto.CacheStatsResponse;
+import com.demo.microservices.model.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded read-through cache for product reads.
+ * Catalog fields and stock quantities live in separate caches: stock changes only touch the
+ * quantity entry, while catalog entries stay until they expire or the product is re-added.
+ * With the change feed active, writes from every replica are applied to cached entries as they happen.
+ */
+@Component
+@Slf4j
+public class ProductCache {
+
+    private static final String LISTING_KEY = "all";
+
+    private final Cache<String, CatalogEntry> catalog;
+    private final Cache<String, Integer> quantities;
+    private final Cache<String, List<String>> listing;
+    // Change events only carry the document id
+    private final Map<String, String> skuById = new ConcurrentHashMap<>();
+    private volatile boolean changeFeedActive;
+
+    public ProductCache(ProductCacheProperties properties) {
+        this.catalog = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getCatalogTtl())
+                .evictionListener((String sku, CatalogEntry entry, RemovalCause cause) -> forgetId(sku, entry))
+                .recordStats()
+                .build();
+        this.quantities = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getQuantityTtl())
+                .recordStats()
+                .build();
+        // A single entry holding SKUs only; the products themselves come from the caches above
+        this.listing = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(properties.getListingTtl())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the product for the SKU, loading it with the given loader when either part is missing.
+     */
+    public Optional<Product> get(String sku, Supplier<Optional<Product>> loader) {
+        Optional<Product> cached = assemble(sku);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        Optional<Product> loaded = loader.get();
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    /**
+     * Returns the full listing from memory. Products that dropped out of the per-SKU caches are fetched
+     * with the bulk loader; the whole listing is reloaded only when the SKU list itself is gone.
+     */
+    public List<Product> getAll(Supplier<List<Product>> loader, Function<Collection<String>, List<Product>> bulkLoader) {
+        List<String> skus = listing.getIfPresent(LISTING_KEY);
+        if (skus == null) {
+            List<Product> loaded = loader.get();
+            putAll(loaded);
+            listing.put(LISTING_KEY, loaded.stream().map(Product::getSku).toList());
+            return loaded;
+        }
+        Map<String, Product> products = new LinkedHashMap<>(skus.size() * 2);
+        List<String> missing = new ArrayList<>();
+        for (String sku : skus) {
+            Optional<Product> product = assemble(sku);
+            products.put(sku, product.orElse(null));
+            if (product.isEmpty()) {
+                missing.add(sku);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Product product : bulkLoader.apply(missing)) {
+                put(product);
+                products.put(product.getSku(), product);
+            }
+        }
+        // SKUs the bulk load did not return were deleted since the listing was built
+        return products.values().stream().filter(Objects::nonNull).toList();
+    }
+
+    public void put(Product product) {
+        if (product.getId() != null) {
+            skuById.put(product.getId(), product.getSku());
+        }
+        catalog.put(product.getSku(), CatalogEntry.of(product));
+        quantities.put(product.getSku(), product.getQuantity());
+    }
+
+    public void putAll(Collection<Product> products) {
+        products.forEach(this::put);
+    }
+
+    /**
+     * Applies committed deductions to cached quantities without touching catalog entries.
+     * With the change feed active the quantities are dropped instead: the feed delivers the new
+     * value, and decrementing as well could count the deduction twice.
+     */
+    public void applyDeductions(Map<String, Integer> quantitiesBySku) {
+        if (changeFeedActive) {
+            quantities.invalidateAll(quantitiesBySku.keySet());
+            return;
+        }
+        quantitiesBySku.forEach((sku, deducted) ->
+                quantities.asMap().computeIfPresent(sku, (key, quantity) -> quantity - deducted));
+    }
+
+    /**
+     * Drops everything cached for the SKUs, e.g. after products were re-added with new data.
+     */
+    public void invalidate(Collection<String> skus) {
+        for (String sku : skus) {
+            forgetId(sku, catalog.getIfPresent(sku));
+        }
+        catalog.invalidateAll(skus);
+        quantities.invalidateAll(skus);
+        listing.invalidateAll();
+    }
+
+    public void invalidateAll() {
+        catalog.invalidateAll();
+        quantities.invalidateAll();
+        listing.invalidateAll();
+        skuById.clear();
+    }
+
+    /**
+     * Drops the cached listing only, e.g. when a product was added or removed.
+     */
+    public void invalidateListing() {
+        listing.invalidateAll();
+    }
+
+    public void changeFeedActive(boolean active) {
+        this.changeFeedActive = active;
+    }
+
+    /**
+     * SKU of a cached product by document id; empty when the product is not cached.
+     */
+    public Optional<String> skuOf(String productId) {
+        return Optional.ofNullable(skuById.get(productId));
+    }
+
+    /**
+     * Sets the stock quantity of a cached product; products not cached stay uncached.
+     */
+    public void setQuantity(String sku, int quantity) {
+        quantities.asMap().computeIfPresent(sku, (key, cached) -> quantity);
+    }
+
+    /**
+     * Changes the catalog fields of a cached product; products not cached stay uncached.
+     */
+    public void updateCatalog(String sku, UnaryOperator<CatalogEntry> change) {
+        catalog.asMap().computeIfPresent(sku, (key, entry) -> change.apply(entry));
+    }
+
+    /**
+     * Replaces whatever is cached for the product with its new state.
+     */
+    public void replace(Product product) {
+        catalog.asMap().computeIfPresent(product.getSku(), (key, entry) -> CatalogEntry.of(product));
+        setQuantity(product.getSku(), product.getQuantity());
+    }
+
+    public List<CacheStatsResponse> stats() {
+        return List.of(
+                toResponse("catalog", catalog),
+                toResponse("quantities", quantities),
+                toResponse("listing", listing));
+    }
+
+    private Optional<Product> assemble(String sku) {
+        CatalogEntry entry = catalog.getIfPresent(sku);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        Integer quantity = quantities.getIfPresent(sku);
+        if (quantity == null) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.toProduct(quantity));
+    }
+
+    private void forgetId(String sku, CatalogEntry entry) {
+        if (entry != null && entry.getId() != null) {
+            skuById.remove(entry.getId(), sku);
+        }
+    }
+
+    private static CacheStatsResponse toResponse(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatsResponse(name, cache.estimatedSize(),
+                stats.hitCount(), stats.missCount(), stats.evictionCount());
+    }
+}
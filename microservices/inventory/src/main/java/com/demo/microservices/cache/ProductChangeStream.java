@@ -0,0 +1,225 @@
+package com.demo.microservices.cache;
+
+import com.demo.microservices.config.ChangeStreamProperties;
+import com.demo.microservices.dto.ChangeStreamStatus;
+import com.demo.microservices.model.Product;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the product cache in step with the products collection, whichever replica wrote it, by tailing
+ * a Mongo change stream. Quantity and catalog field updates are applied to cached entries in place;
+ * inserts and deletes drop the cached listing. Products not cached here are ignored.
+ * The stream is reopened after failures from the last resume token, so no event is skipped; when the
+ * token is no longer in the oplog the whole cache is dropped instead. A restarted process starts with
+ * an empty cache and so simply watches from now on.
+ */
+@Component
+@ConditionalOnProperty(prefix = "inventory.change-stream", name = "enabled", havingValue = "true")
+@Slf4j
+public class ProductChangeStream implements InitializingBean, DisposableBean {
+
+    private static final String COLLECTION = "products";
+    private static final String UPDATED_FIELDS = "updateDescription.updatedFields.";
+    private static final String QUANTITY = "quantity";
+    private static final List<String> CATALOG_FIELDS = List.of("name", "description", "price", "currency");
+
+    // Error codes meaning the resume token can no longer be used
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final int CHANGE_STREAM_FATAL_ERROR = 280;
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCache productCache;
+    private final ChangeStreamProperties properties;
+    private final Thread follower;
+    private final LongAdder eventsApplied = new LongAdder();
+
+    private volatile boolean running = true;
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+    private volatile BsonDocument resumeToken;
+    private volatile long lastEventLagMillis = -1;
+
+    public ProductChangeStream(MongoTemplate mongoTemplate, ProductCache productCache, ChangeStreamProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.productCache = productCache;
+        this.properties = properties;
+        this.follower = new Thread(this::followLoop, "products-change-stream");
+        this.follower.setDaemon(true);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        follower.start();
+    }
+
+    public ChangeStreamStatus status() {
+        BsonDocument token = resumeToken;
+        return new ChangeStreamStatus(cursor != null, eventsApplied.sum(), lastEventLagMillis,
+                token != null ? token.toJson() : null);
+    }
+
+    private void followLoop() {
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> opened = open()) {
+                cursor = opened;
+                if (resumeToken == null) {
+                    // Anything cached before the stream was open may have missed changes
+                    productCache.invalidateAll();
+                }
+                productCache.changeFeedActive(true);
+                log.info("Following {} changes{}", COLLECTION, resumeToken != null ? " from resume token" : "");
+
+                while (running) {
+                    ChangeStreamDocument<Document> event = opened.tryNext();
+                    if (event != null) {
+                        apply(event);
+                    }
+                    // Also advances while idle, so a reconnect never replays more than it must
+                    BsonDocument token = opened.getResumeToken();
+                    if (token != null) {
+                        resumeToken = token;
+                    }
+                }
+            } catch (MongoException | IllegalStateException e) {
+                if (!running) {
+                    return;
+                }
+                productCache.changeFeedActive(false);
+                if (isResumeTokenLost(e)) {
+                    log.warn("Change stream history lost; dropping the product cache and watching from now on");
+                    resumeToken = null;
+                    productCache.invalidateAll();
+                } else {
+                    log.error("Products change stream failed, reconnecting: {}", e.getMessage());
+                }
+                sleep(properties.getReconnectDelay().toMillis());
+            } finally {
+                cursor = null;
+            }
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open() {
+        // Skip events the cache does not care about (e.g. reservation bookkeeping) on the server side
+        Bson relevant = Filters.or(
+                Filters.ne("operationType", OperationType.UPDATE.getValue()),
+                Filters.exists(UPDATED_FIELDS + QUANTITY),
+                Filters.or(CATALOG_FIELDS.stream().map(field -> Filters.exists(UPDATED_FIELDS + field)).toList()));
+        Bson trimmed = Projections.include(
+                "operationType", "documentKey", "fullDocument", "clusterTime", "wallTime",
+                UPDATED_FIELDS + QUANTITY,
+                UPDATED_FIELDS + "name", UPDATED_FIELDS + "description", UPDATED_FIELDS + "price", UPDATED_FIELDS + "currency");
+
+        var stream = mongoTemplate.getCollection(COLLECTION)
+                .watch(List.of(Aggregates.match(relevant), Aggregates.project(trimmed)))
+                .maxAwaitTime(properties.getMaxAwaitTime().toMillis(), TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        return stream.cursor();
+    }
+
+    private void apply(ChangeStreamDocument<Document> event) {
+        if (event.getWallTime() != null) {
+            lastEventLagMillis = Math.max(0, System.currentTimeMillis() - event.getWallTime().getValue());
+        }
+        switch (event.getOperationType()) {
+            case UPDATE -> applyUpdate(event);
+            case REPLACE -> {
+                if (event.getFullDocument() != null) {
+                    productCache.replace(mongoTemplate.getConverter().read(Product.class, event.getFullDocument()));
+                }
+            }
+            case INSERT -> productCache.invalidateListing();
+            case DELETE -> productCache.skuOf(productId(event)).ifPresentOrElse(
+                    sku -> productCache.invalidate(List.of(sku)),
+                    productCache::invalidateListing);
+            // The collection itself went away or was renamed
+            default -> productCache.invalidateAll();
+        }
+        eventsApplied.increment();
+    }
+
+    private void applyUpdate(ChangeStreamDocument<Document> event) {
+        String sku = productCache.skuOf(productId(event)).orElse(null);
+        if (sku == null || event.getUpdateDescription() == null || event.getUpdateDescription().getUpdatedFields() == null) {
+            return;
+        }
+        BsonDocument updated = event.getUpdateDescription().getUpdatedFields();
+        BsonValue quantity = updated.get(QUANTITY);
+        if (quantity != null && quantity.isNumber()) {
+            // The post-image value, so applying events in order converges even if one was missed locally
+            productCache.setQuantity(sku, quantity.asNumber().intValue());
+        }
+        if (CATALOG_FIELDS.stream().anyMatch(updated::containsKey)) {
+            productCache.updateCatalog(sku, entry -> {
+                CatalogEntry changed = entry;
+                if (updated.isString("name")) {
+                    changed = changed.withName(updated.getString("name").getValue());
+                }
+                if (updated.isString("description")) {
+                    changed = changed.withDescription(updated.getString("description").getValue());
+                }
+                if (updated.isNumber("price")) {
+                    changed = changed.withPrice(updated.getNumber("price").longValue());
+                }
+                if (updated.isString("currency")) {
+                    changed = changed.withCurrency(updated.getString("currency").getValue());
+                }
+                return changed;
+            });
+        }
+    }
+
+    private static String productId(ChangeStreamDocument<Document> event) {
+        BsonValue id = event.getDocumentKey() != null ? event.getDocumentKey().get("_id") : null;
+        if (id == null) {
+            return "";
+        }
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private static boolean isResumeTokenLost(Exception e) {
+        return e instanceof MongoCommandException command
+                && (command.getErrorCode() == CHANGE_STREAM_HISTORY_LOST || command.getErrorCode() == CHANGE_STREAM_FATAL_ERROR);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        productCache.changeFeedActive(false);
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> open = cursor;
+        if (open != null) {
+            open.close();
+        }
+        follower.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
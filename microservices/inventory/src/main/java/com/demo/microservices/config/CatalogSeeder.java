@@ -0,0 +1,37 @@
+package com.demo.microservices.config;
+
+import com.demo.microservices.dto.IngestionReport;
+import com.demo.microservices.service.ProductIngestionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+
+/**
+ * Re-seeds the catalog at startup by streaming the seed file through the bulk ingestion pipeline.
+ */
+@Component
+@ConditionalOnProperty(prefix = "inventory.ingestion", name = "seed-on-startup", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogSeeder implements ApplicationRunner {
+
+    private final ProductIngestionService ingestionService;
+    private final IngestionProperties properties;
+    private final ResourceLoader resourceLoader;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        log.info("Seeding catalog from {}", properties.getSeedLocation());
+        try (InputStream in = resourceLoader.getResource(properties.getSeedLocation()).getInputStream()) {
+            IngestionReport report = ingestionService.importProducts(in);
+            log.info("Catalog seeded: {} rows, {} upserted, {} failed",
+                    report.getRowsRead(), report.getUpserted(), report.getRowsFailed());
+        }
+    }
+}
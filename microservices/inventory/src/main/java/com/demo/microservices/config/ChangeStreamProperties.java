@@ -0,0 +1,29 @@
+package com.demo.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "inventory.change-stream")
+@Data
+public class ChangeStreamProperties {
+
+    /**
+     * Whether the product cache follows the products collection through a change stream.
+     * Needs Mongo running as a replica set (a single-node one is enough).
+     */
+    private boolean enabled = false;
+
+    /**
+     * How long the server holds an empty change stream batch open; also how often the resume token advances while idle.
+     */
+    private Duration maxAwaitTime = Duration.ofMillis(500);
+
+    /**
+     * Pause before reopening the change stream after it failed.
+     */
+    private Duration reconnectDelay = Duration.ofSeconds(1);
+}
@@ -0,0 +1,33 @@
+package com.demo.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "inventory.deduct-batching")
+@Data
+public class DeductBatchingProperties {
+
+    /**
+     * Whether concurrent stock deductions are merged into shared bulk writes.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How long the first deduction of a batch waits for others to join it.
+     */
+    private Duration window = Duration.ofNanos(500_000);
+
+    /**
+     * Deductions per batch; a full batch is written without waiting for the window to close.
+     */
+    private int maxBatchSize = 256;
+
+    /**
+     * Deductions waiting for a batch; when full, callers write their own deduction directly.
+     */
+    private int queueCapacity = 10_000;
+}
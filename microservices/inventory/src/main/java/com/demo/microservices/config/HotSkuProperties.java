@@ -0,0 +1,66 @@
+package com.demo.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "inventory.hot-sku")
+@Data
+public class HotSkuProperties {
+
+    /**
+     * Whether heavily contended SKUs are moved to the in-memory stock ledger.
+     * Only safe when a single replica deducts a given SKU (one instance, or SKU-affine routing).
+     */
+    private boolean enabled = false;
+
+    /**
+     * Length of the window over which deductions per SKU are counted.
+     */
+    private Duration window = Duration.ofSeconds(1);
+
+    /**
+     * Deductions of one SKU within a window that promote it into the ledger.
+     */
+    private int promoteThreshold = 200;
+
+    /**
+     * A ledger SKU with fewer deductions than this per window counts as cooled down.
+     */
+    private int demoteThreshold = 20;
+
+    /**
+     * Consecutive cooled-down windows after which a SKU is handed back to Mongo.
+     */
+    private int demoteAfterWindows = 30;
+
+    /**
+     * Maximum number of SKUs held in the ledger at once.
+     */
+    private int maxHotSkus = 64;
+
+    /**
+     * Counter stripes per ledger SKU; rounded down to a power of two.
+     */
+    private int stripes = 16;
+
+    /**
+     * How often coalesced ledger deductions are written to Mongo.
+     */
+    private Duration flushInterval = Duration.ofMillis(20);
+
+    /**
+     * Directory of the ledger write-ahead log.
+     */
+    private String walDirectory = "ledger";
+
+    /**
+     * Whether every ledger deduction is forced to disk before it is acknowledged. Deductions waiting at the
+     * same time share one fsync, so this adds disk latency to each basket without serializing them on it.
+     * Without it, a crash of the host (not just the process) can lose up to a flush interval of deductions.
+     */
+    private boolean walFsync = true;
+}
@@ -0,0 +1,21 @@
+package com.demo.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "inventory.indexes")
+@Data
+public class IndexProperties {
+
+    /**
+     * Whether indexes declared on the products collection are created at startup when missing.
+     */
+    private boolean createMissing = true;
+
+    /**
+     * Whether startup fails when a declared index is still missing; otherwise a warning is logged.
+     */
+    private boolean failOnMissing = true;
+}
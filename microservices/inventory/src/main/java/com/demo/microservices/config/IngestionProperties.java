@@ -0,0 +1,28 @@
+package com.demo.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "inventory.ingestion")
+@Data
+public class IngestionProperties {
+
+    /**
+     * Number of products sent to Mongo per unordered bulk upsert.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Maximum number of error messages kept in an import report.
+     */
+    private int maxReportedErrors = 100;
+
+    /**
+     * Whether the catalog is (re-)seeded from {@link #seedLocation} at startup.
+     */
+    private boolean seedOnStartup = false;
+
+    private String seedLocation = "classpath:data.json";
+}
@@ -0,0 +1,34 @@
+package com.demo.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "inventory.cache")
+@Data
+public class ProductCacheProperties {
+
+    /**
+     * Maximum number of SKUs whose catalog fields (name, description, price, currency) are kept in memory.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * How long catalog fields are served from memory before being re-read from Mongo.
+     */
+    private Duration catalogTtl = Duration.ofMinutes(10);
+
+    /**
+     * How long a cached stock quantity is trusted. Kept short because other replicas deduct stock too.
+     */
+    private Duration quantityTtl = Duration.ofSeconds(5);
+
+    /**
+     * How long the list of SKUs behind the full listing is kept. Entries missing from the per-SKU caches
+     * are loaded on their own, so this only bounds how late products added on other replicas show up.
+     */
+    private Duration listingTtl = Duration.ofSeconds(5);
+}
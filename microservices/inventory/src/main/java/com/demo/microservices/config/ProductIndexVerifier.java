@@ -0,0 +1,83 @@
+package com.demo.microservices.config;
+
+import com.demo.microservices.model.Product;
+import com.demo.microservices.model.Reservation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Makes sure the indexes declared on {@link Product} (and {@link Reservation}) exist before the service takes traffic.
+ * Without the unique SKU index every lookup and deduction is a collection scan, so by default
+ * startup is aborted when an index is missing and could not be created.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductIndexVerifier implements InitializingBean {
+
+    private final MongoTemplate mongoTemplate;
+    private final IndexProperties properties;
+
+    @Override
+    public void afterPropertiesSet() {
+        verify(Product.class);
+        // The reservation sweep and the TTL on finished reservations depend on these
+        verify(Reservation.class);
+    }
+
+    private void verify(Class<?> entity) {
+        String collection = mongoTemplate.getCollectionName(entity);
+        IndexOperations indexOps = mongoTemplate.indexOps(entity);
+        List<IndexDefinition> declared = new ArrayList<>();
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(entity)
+                .forEach(declared::add);
+
+        if (properties.isCreateMissing()) {
+            for (IndexDefinition index : declared) {
+                try {
+                    indexOps.ensureIndex(index);
+                } catch (RuntimeException e) {
+                    // e.g. duplicate SKUs in existing data; reported as missing below
+                    log.error("Could not create index {} on {}: {}", index.getIndexKeys().toJson(), collection, e.getMessage());
+                }
+            }
+        }
+
+        List<IndexInfo> existing = indexOps.getIndexInfo();
+        List<String> missing = declared.stream()
+                .filter(index -> existing.stream().noneMatch(info -> matches(index, info)))
+                .map(index -> index.getIndexKeys().toJson())
+                .toList();
+        if (missing.isEmpty()) {
+            log.info("Verified {} indexes on {}", declared.size(), collection);
+            return;
+        }
+        String message = "Missing indexes on " + collection + ": " + missing;
+        if (properties.isFailOnMissing()) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    private static boolean matches(IndexDefinition index, IndexInfo info) {
+        Document keys = index.getIndexKeys();
+        List<String> existingKeys = info.getIndexFields().stream().map(IndexField::getKey).toList();
+        if (!existingKeys.equals(new ArrayList<>(keys.keySet()))) {
+            return false;
+        }
+        return !Boolean.TRUE.equals(index.getIndexOptions().get("unique")) || info.isUnique();
+    }
+}
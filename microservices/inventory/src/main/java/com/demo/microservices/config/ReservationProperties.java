@@ -0,0 +1,34 @@
+package com.demo.microservices.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "inventory.reservations")
+@Data
+public class ReservationProperties {
+
+    /**
+     * How long reserved stock is held when the caller does not ask for a TTL.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * Longest TTL a caller may ask for.
+     */
+    private Duration maxTtl = Duration.ofMinutes(30);
+
+    /**
+     * Resolution of the expiry timing wheel; reservations are released at most one tick late.
+     */
+    private Duration tick = Duration.ofMillis(100);
+
+    /**
+     * How often Mongo is searched for reservations no timer released, e.g. those of a replica that crashed.
+     * Only reservations expired for longer than this are picked up, so the owning replica's timer goes first.
+     */
+    private Duration sweepInterval = Duration.ofSeconds(30);
+}
@@ -0,0 +1,21 @@
+package com.demo.microservices.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Lets callers exchange CBOR instead of JSON by sending Content-Type/Accept: application/cbor.
+ * JSON stays the default: the CBOR converter replaces Spring's default one, which sits after the JSON converter.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        // Boot's builder, so views, naming and spring.jackson.* settings match the JSON converter
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -1,19 +1,38 @@
 package com.demo.microservices.controller;
 
+import com.demo.microservices.cache.ProductChangeStream;
+import com.demo.microservices.dto.CacheStatsResponse;
+import com.demo.microservices.dto.ChangeStreamStatus;
 import com.demo.microservices.dto.DeductErrorResponse;
 import com.demo.microservices.dto.DeductRequest;
 import com.demo.microservices.dto.DeductSuccess;
+import com.demo.microservices.dto.IngestionReport;
+import com.demo.microservices.dto.ProductPage;
+import com.demo.microservices.dto.ProductPrice;
 import com.demo.microservices.exception.InsufficientStockException;
+import com.demo.microservices.exception.ReservationStateException;
 import com.demo.microservices.model.Product;
 import com.demo.microservices.service.InventoryService;
+import com.demo.microservices.service.ProductIngestionService;
+import com.demo.microservices.service.ReservationService;
+import com.demo.microservices.utils.InventoryDeductionStatus;
 import com.demo.microservices.view.Views;
 import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -21,9 +40,29 @@ import java.util.List;
 @Slf4j
 public class InventoryController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
+    private static final int MAX_BATCH_SKUS = 5000;
+
+    // Doubles as the reservation id, so a retried reserve never holds stock twice
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     @Autowired
     InventoryService inventoryService;
 
+    @Autowired
+    ProductIngestionService ingestionService;
+
+    @Autowired
+    ReservationService reservationService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    // Present only with inventory.change-stream.enabled=true
+    @Autowired(required = false)
+    ProductChangeStream productChangeStream;
+
     @GetMapping("/products" )
     @JsonView(Views.Basic.class)
     public ResponseEntity<List<Product>> getAllProducts() {
@@ -35,6 +74,27 @@ public class InventoryController {
         }
     }
 
+    @GetMapping("/products/page")
+    @JsonView(Views.Basic.class)
+    public ResponseEntity<ProductPage> getProductsPage(@RequestParam(required = false) String after,
+                                                       @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(inventoryService.getProductsPage(after, limit));
+    }
+
+    @GetMapping(value = "/products/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamProducts() {
+        ObjectWriter writer = objectMapper.writerWithView(Views.Basic.class);
+        StreamingResponseBody body = out -> inventoryService.streamAllProducts(product -> {
+            try {
+                out.write(writer.writeValueAsBytes(product));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
     @GetMapping("/product/{sku}")
     @JsonView(Views.Detailed.class)
     public ResponseEntity<Product> getProductBySku(@PathVariable String sku) {
@@ -46,6 +106,34 @@ public class InventoryController {
         }
     }
 
+    @PostMapping("/products/batch")
+    public ResponseEntity<MappingJacksonValue> getProductsBatch(@RequestBody List<String> skus,
+                                                                @RequestParam(defaultValue = "basic") String view) {
+        return productsBatch(skus, view);
+    }
+
+    @GetMapping("/products/batch")
+    public ResponseEntity<MappingJacksonValue> getProductsBatchBySku(@RequestParam("sku") List<String> skus,
+                                                                     @RequestParam(defaultValue = "basic") String view) {
+        return productsBatch(skus, view);
+    }
+
+    private ResponseEntity<MappingJacksonValue> productsBatch(List<String> skus, String view) {
+        Class<?> viewClass = "detailed".equalsIgnoreCase(view) ? Views.Detailed.class : Views.Basic.class;
+        if (skus.size() > MAX_BATCH_SKUS) {
+            log.warn("Rejected batch lookup of {} SKUs (limit {})", skus.size(), MAX_BATCH_SKUS);
+            return ResponseEntity.badRequest().build();
+        }
+        MappingJacksonValue body = new MappingJacksonValue(inventoryService.getProductsBySku(skus, viewClass));
+        body.setSerializationView(viewClass);
+        return ResponseEntity.ok(body);
+    }
+
+    @PostMapping("/products/prices")
+    public ResponseEntity<List<ProductPrice>> getPrices(@RequestBody List<String> skus) {
+        return ResponseEntity.ok(inventoryService.getPrices(skus));
+    }
+
     @PostMapping("/stock/deduct")
     public ResponseEntity<?> deductStock(@RequestBody List<DeductRequest> request) {
         try {
@@ -61,8 +149,72 @@ public class InventoryController {
         }
     }
 
+    @PostMapping("/stock/reservations")
+    public ResponseEntity<?> reserveStock(@RequestBody List<DeductRequest> request,
+                                          @RequestParam(required = false) Long ttlSeconds,
+                                          @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        try {
+            Duration ttl = ttlSeconds != null ? Duration.ofSeconds(ttlSeconds) : null;
+            return new ResponseEntity<>(reservationService.reserve(request, ttl, idempotencyKey), HttpStatus.CREATED);
+        } catch (InsufficientStockException e) {
+            log.warn("Stock reservation failed due to insufficient stock: {}", e.getMessage());
+            return new ResponseEntity<>(e.getErrorResponse(), HttpStatus.CONFLICT);
+        } catch (ReservationStateException e) {
+            log.warn("Stock reservation replay rejected: {}", e.getMessage());
+            return new ResponseEntity<>(e.getErrorResponse(), HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid stock reservation request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/stock/reservations/{reservationId}/commit")
+    public ResponseEntity<?> commitReservation(@PathVariable String reservationId) {
+        try {
+            reservationService.commit(reservationId);
+            return ResponseEntity.ok(new DeductSuccess(InventoryDeductionStatus.DEDUCTION_COMMITTED.getApiValue()));
+        } catch (ReservationStateException e) {
+            log.warn("Reservation commit rejected: {}", e.getMessage());
+            return new ResponseEntity<>(e.getErrorResponse(), HttpStatus.CONFLICT);
+        }
+    }
+
+    @PostMapping("/stock/reservations/{reservationId}/release")
+    public ResponseEntity<?> releaseReservation(@PathVariable String reservationId) {
+        try {
+            reservationService.release(reservationId);
+            return ResponseEntity.noContent().build();
+        } catch (ReservationStateException e) {
+            log.warn("Reservation release rejected: {}", e.getMessage());
+            return new ResponseEntity<>(e.getErrorResponse(), HttpStatus.CONFLICT);
+        }
+    }
+
     @PostMapping("/add/stock")
     public void addStock(@RequestBody List<Product> request) {
             inventoryService.addProducts(request);
     }
+
+    @PostMapping(value = "/add/stock/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<IngestionReport> importStock(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(ingestionService.importProducts(body));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected product import: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<List<CacheStatsResponse>> getCacheStats() {
+        return ResponseEntity.ok(inventoryService.getCacheStats());
+    }
+
+    @GetMapping("/cache/change-stream")
+    public ResponseEntity<ChangeStreamStatus> getChangeStreamStatus() {
+        if (productChangeStream == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(productChangeStream.status());
+    }
 }
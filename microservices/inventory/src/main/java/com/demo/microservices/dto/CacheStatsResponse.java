@@ -0,0 +1,14 @@
+package com.demo.microservices.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CacheStatsResponse {
+    private String cache;
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+}
@@ -0,0 +1,14 @@
+package com.demo.microservices.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ChangeStreamStatus {
+    private boolean active;
+    private long eventsApplied;
+    // Wall-clock time between the write and its event being applied here; -1 before the first event
+    private long lastEventLagMillis;
+    private String resumeToken;
+}
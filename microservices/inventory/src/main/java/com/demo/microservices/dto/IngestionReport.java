@@ -0,0 +1,18 @@
+package com.demo.microservices.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class IngestionReport {
+    private long rowsRead;
+    private long rowsFailed;
+    private long upserted;
+    private long modified;
+    private int batches;
+    private long elapsedMillis;
+    private long rowsPerSecond;
+    private List<String> errors = new ArrayList<>();
+}
@@ -0,0 +1,22 @@
+package com.demo.microservices.dto;
+
+import com.demo.microservices.model.Product;
+import com.demo.microservices.view.Views;
+import com.fasterxml.jackson.annotation.JsonView;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductBatch {
+
+    // Found products, in the order their SKUs were requested
+    @JsonView(Views.Basic.class)
+    private List<Product> items;
+
+    // Requested SKUs with no product
+    @JsonView(Views.Basic.class)
+    private List<String> missing;
+}
@@ -0,0 +1,21 @@
+package com.demo.microservices.dto;
+
+import com.demo.microservices.model.Product;
+import com.demo.microservices.view.Views;
+import com.fasterxml.jackson.annotation.JsonView;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ProductPage {
+
+    @JsonView(Views.Basic.class)
+    private List<Product> items;
+
+    // SKU to pass as "after" to fetch the next page; null on the last page
+    @JsonView(Views.Basic.class)
+    private String nextCursor;
+}
@@ -0,0 +1,15 @@
+package com.demo.microservices.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPrice {
+    private String sku;
+    // Minor units (e.g. paise, cents) of the currency
+    private long price;
+    private String currency;
+}
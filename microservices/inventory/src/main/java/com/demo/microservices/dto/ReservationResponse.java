@@ -0,0 +1,13 @@
+package com.demo.microservices.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class ReservationResponse {
+    private String reservationId;
+    private Instant expiresAt;
+}
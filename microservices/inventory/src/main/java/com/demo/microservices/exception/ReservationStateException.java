@@ -0,0 +1,20 @@
+package com.demo.microservices.exception;
+
+import com.demo.microservices.dto.DeductErrorResponse;
+import lombok.Getter;
+
+@Getter
+public class ReservationStateException extends RuntimeException {
+
+    public static final String EXPIRED = "RESERVATION_EXPIRED";
+    public static final String NOT_FOUND = "RESERVATION_NOT_FOUND";
+    public static final String ALREADY_COMMITTED = "RESERVATION_ALREADY_COMMITTED";
+    public static final String IN_PROGRESS = "RESERVATION_IN_PROGRESS";
+
+    private final DeductErrorResponse errorResponse;
+
+    public ReservationStateException(String error, String reservationId) {
+        super(error + ": " + reservationId);
+        this.errorResponse = new DeductErrorResponse(error, null);
+    }
+}
@@ -0,0 +1,382 @@
+package com.demo.microservices.ledger;
+
+import com.demo.microservices.config.HotSkuProperties;
+import com.demo.microservices.repository.InventoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * In-memory stock ledger for heavily contended SKUs. While a SKU is hot its quantity lives in a
+ * {@link StripedStock}: deductions are accepted or rejected in memory, appended to a write-ahead log,
+ * and written to Mongo as one coalesced decrement per SKU every flush interval.
+ * <p>
+ * SKUs are promoted when their deductions per window reach the promote threshold and demoted after
+ * staying below the demote threshold for several windows. The Mongo "hot" flag keeps plain
+ * deductions off a SKU while the ledger owns it, so handovers in either direction never oversell.
+ * On startup, deductions left in the log are replayed into Mongo before any request is served.
+ */
+@Component
+@ConditionalOnProperty(prefix = "inventory.hot-sku", name = "enabled", havingValue = "true")
+@Slf4j
+public class HotStockLedger implements DisposableBean {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long TRANSITION_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long TRANSITION_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final long RETRY_BACKOFF_MILLIS = 1_000;
+
+    private final InventoryRepository repository;
+    private final HotSkuProperties properties;
+    private final LedgerWal wal;
+    private final Map<String, HotSku> hot = new ConcurrentHashMap<>();
+    private final AtomicReference<Map<String, LongAdder>> attempts = new AtomicReference<>(new ConcurrentHashMap<>());
+    private final ScheduledExecutorService scheduler;
+
+    // Guarded by this: the log, the sequence and the deductions not yet handed to Mongo
+    private long lastSeq;
+    private Map<String, Long> pending = new HashMap<>();
+
+    public HotStockLedger(InventoryRepository repository, HotSkuProperties properties) throws IOException {
+        this.repository = repository;
+        this.properties = properties;
+        this.wal = new LedgerWal(Path.of(properties.getWalDirectory()), properties.isWalFsync());
+
+        recover();
+
+        // One thread for flushes, promotions and demotions, so they never interleave
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hot-sku-ledger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long flushMillis = properties.getFlushInterval().toMillis();
+        long windowMillis = properties.getWindow().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::rebalance, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Deducts a basket, taking hot SKUs from memory and handing the rest to the plain Mongo path.
+     *
+     * @param quantitiesBySku quantity to deduct per SKU, in request order
+     * @param coldPath        deducts the remaining lines all-or-nothing and returns the SKU that failed, if any
+     * @return the SKU that could not be deducted, or empty when the whole basket was committed
+     */
+    public Optional<String> deduct(Map<String, Integer> quantitiesBySku,
+                                   Function<Map<String, Integer>, Optional<String>> coldPath) {
+        for (int attempt = 1; ; attempt++) {
+            Map<String, Integer> cold = new LinkedHashMap<>();
+            List<HotSku> acquired = new ArrayList<>();
+            Map<String, Integer> taken = new LinkedHashMap<>();
+            boolean coldDeducted = false;
+            try {
+                for (Map.Entry<String, Integer> line : quantitiesBySku.entrySet()) {
+                    HotSku entry = acquire(line.getKey());
+                    if (entry == null) {
+                        recordAttempt(line.getKey());
+                        cold.put(line.getKey(), line.getValue());
+                        continue;
+                    }
+                    acquired.add(entry);
+                    if (!entry.stock.tryTake(line.getValue())) {
+                        giveBack(taken);
+                        return Optional.of(line.getKey());
+                    }
+                    entry.deductions.increment();
+                    taken.put(line.getKey(), line.getValue());
+                }
+
+                Optional<String> failed = cold.isEmpty() ? Optional.empty() : coldPath.apply(cold);
+                if (failed.isPresent()) {
+                    giveBack(taken);
+                    // Promoted between our lookup and the Mongo write: run the basket again
+                    if (hot.containsKey(failed.get()) && attempt < MAX_ATTEMPTS) {
+                        continue;
+                    }
+                    return failed;
+                }
+                coldDeducted = !cold.isEmpty();
+                if (!taken.isEmpty()) {
+                    sync(journal(taken));
+                }
+                return Optional.empty();
+            } catch (RuntimeException e) {
+                // Cold path failure, handover timeout or WAL write: nothing taken here may stay taken
+                giveBack(taken);
+                if (coldDeducted) {
+                    // The cold lines are already in Mongo; only the WAL write can have failed after them
+                    try {
+                        repository.restoreStock(cold);
+                    } catch (RuntimeException restoreFailure) {
+                        e.addSuppressed(restoreFailure);
+                    }
+                }
+                throw e;
+            } finally {
+                acquired.forEach(entry -> entry.inflight.decrement());
+            }
+        }
+    }
+
+    /**
+     * Available quantity of a hot SKU as held in memory, or empty when the SKU is not in the ledger.
+     */
+    public Optional<Long> available(String sku) {
+        HotSku entry = hot.get(sku);
+        return entry != null && entry.state == State.ACTIVE ? Optional.of(entry.stock.available()) : Optional.empty();
+    }
+
+    /**
+     * Hands the SKUs that are in the ledger back to Mongo and waits until that is done,
+     * e.g. before their quantity is overwritten by an import.
+     */
+    public void handBack(Collection<String> skus) {
+        if (skus.stream().noneMatch(hot::containsKey)) {
+            return;
+        }
+        try {
+            scheduler.submit(() -> skus.forEach(sku -> {
+                HotSku entry = hot.get(sku);
+                if (entry != null && entry.state == State.ACTIVE) {
+                    demote(entry);
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while handing back hot SKUs", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to hand back hot SKUs", e.getCause());
+        }
+    }
+
+    /**
+     * Returns the SKU's active entry with its in-flight count raised, or null when the SKU is not hot.
+     * Waits while the SKU is being handed over.
+     */
+    private HotSku acquire(String sku) {
+        long deadline = System.nanoTime() + TRANSITION_TIMEOUT_NANOS;
+        while (true) {
+            HotSku entry = hot.get(sku);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.state == State.ACTIVE) {
+                entry.inflight.increment();
+                // Re-check after announcing ourselves; pairs with the state write in demote()
+                if (entry.state == State.ACTIVE) {
+                    return entry;
+                }
+                entry.inflight.decrement();
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Timed out waiting for hot SKU handover: " + sku);
+            }
+            LockSupport.parkNanos(TRANSITION_PARK_NANOS);
+        }
+    }
+
+    private void giveBack(Map<String, Integer> taken) {
+        taken.forEach((sku, quantity) -> hot.get(sku).stock.giveBack(quantity));
+    }
+
+    /**
+     * @return the sequence of the log entry, to {@link #sync(long)} outside the ledger lock
+     */
+    private synchronized long journal(Map<String, Integer> taken) {
+        long seq = lastSeq + 1;
+        try {
+            wal.append(seq, taken);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to journal hot SKU deduction", e);
+        }
+        lastSeq = seq;
+        taken.forEach((sku, quantity) -> pending.merge(sku, (long) quantity, Long::sum));
+        return seq;
+    }
+
+    private void sync(long seq) {
+        try {
+            wal.sync(seq);
+        } catch (IOException e) {
+            // Already counted and on its way to Mongo, so failing the basket now would double count it
+            log.error("Failed to force hot SKU ledger log to disk up to seq {}: {}", seq, e.getMessage());
+        }
+    }
+
+    private void recordAttempt(String sku) {
+        attempts.get().computeIfAbsent(sku, key -> new LongAdder()).increment();
+    }
+
+    private void flush() {
+        Map<String, Long> batch;
+        long seq;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            seq = lastSeq;
+            pending = new HashMap<>();
+            try {
+                wal.roll();
+            } catch (IOException e) {
+                log.error("Failed to roll hot SKU ledger log: {}", e.getMessage());
+            }
+        }
+        // Batches must land in sequence order, so keep retrying this one before taking the next
+        while (true) {
+            try {
+                repository.applyLedgerDeductions(batch, seq);
+                wal.deleteRolled();
+                log.debug("Flushed ledger deductions for {} SKUs up to seq {}", batch.size(), seq);
+                return;
+            } catch (RuntimeException | IOException e) {
+                log.error("Failed to flush ledger deductions for {} SKUs, retrying: {}", batch.size(), e.getMessage());
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void rebalance() {
+        try {
+            Map<String, LongAdder> window = attempts.getAndSet(new ConcurrentHashMap<>());
+
+            for (HotSku entry : hot.values()) {
+                if (entry.deductions.sumThenReset() >= properties.getDemoteThreshold()) {
+                    entry.quietWindows = 0;
+                } else if (++entry.quietWindows >= properties.getDemoteAfterWindows()) {
+                    demote(entry);
+                }
+            }
+
+            List<Map.Entry<String, Long>> candidates = window.entrySet().stream()
+                    .map(e -> Map.entry(e.getKey(), e.getValue().sum()))
+                    .filter(e -> e.getValue() >= properties.getPromoteThreshold())
+                    .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                    .toList();
+            for (Map.Entry<String, Long> candidate : candidates) {
+                if (hot.size() >= properties.getMaxHotSkus()) {
+                    break;
+                }
+                promote(candidate.getKey(), candidate.getValue());
+            }
+        } catch (RuntimeException e) {
+            log.error("Hot SKU rebalance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void promote(String sku, long observed) {
+        HotSku entry = new HotSku(sku);
+        if (hot.putIfAbsent(sku, entry) != null) {
+            return;
+        }
+        // Requests for the SKU wait while PROMOTING; plain deductions in flight either landed before
+        // the flag (and are in the returned quantity) or fail on it and are retried through the ledger.
+        Optional<Integer> quantity;
+        try {
+            quantity = repository.markHot(sku);
+        } catch (RuntimeException e) {
+            hot.remove(sku);
+            throw e;
+        }
+        if (quantity.isEmpty()) {
+            hot.remove(sku);
+            return;
+        }
+        entry.stock = new StripedStock(properties.getStripes(), quantity.get());
+        entry.state = State.ACTIVE;
+        log.info("Promoted SKU {} to the hot ledger ({} deductions in the last window, {} in stock)",
+                sku, observed, quantity.get());
+    }
+
+    private void demote(HotSku entry) {
+        entry.state = State.DEMOTING;
+        while (entry.inflight.sum() != 0) {
+            LockSupport.parkNanos(TRANSITION_PARK_NANOS);
+        }
+        flush();
+        repository.clearHot(entry.sku);
+        hot.remove(entry.sku);
+        log.info("Demoted SKU {} from the hot ledger", entry.sku);
+    }
+
+    /**
+     * Replays deductions left in the log by a previous run. Each SKU only gets the entries newer than
+     * the sequence Mongo already applied, so a crash after a flush but before the log cleanup is harmless.
+     */
+    private void recover() throws IOException {
+        List<LedgerWal.Entry> entries = wal.recover();
+        long maxSeq = repository.findMaxLedgerSeq();
+        if (!entries.isEmpty()) {
+            Map<String, Long> applied = repository.findLedgerSeqs(entries.stream().map(LedgerWal.Entry::sku).distinct().toList());
+            Map<String, Long> replay = new HashMap<>();
+            long replaySeq = 0;
+            for (LedgerWal.Entry entry : entries) {
+                replaySeq = Math.max(replaySeq, entry.seq());
+                if (entry.seq() > applied.getOrDefault(entry.sku(), 0L)) {
+                    replay.merge(entry.sku(), (long) entry.quantity(), Long::sum);
+                }
+            }
+            repository.applyLedgerDeductions(replay, replaySeq);
+            log.info("Replayed ledger deductions for {} SKUs up to seq {}", replay.size(), replaySeq);
+            maxSeq = Math.max(maxSeq, replaySeq);
+        }
+        wal.deleteRecovered();
+        repository.clearAllHot();
+        lastSeq = maxSeq;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+        wal.close();
+    }
+
+    private enum State {
+        PROMOTING, ACTIVE, DEMOTING
+    }
+
+    private static final class HotSku {
+        private final String sku;
+        private final LongAdder inflight = new LongAdder();
+        private final LongAdder deductions = new LongAdder();
+        private volatile State state = State.PROMOTING;
+        private volatile StripedStock stock;
+        // Only touched by the ledger thread
+        private int quietWindows;
+
+        private HotSku(String sku) {
+            this.sku = sku;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.demo.microservices.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead log of in-memory stock deductions not yet reconciled to Mongo. One line per basket:
+ * {@code seq<TAB>sku<TAB>quantity[<TAB>sku<TAB>quantity...]}. The log is rolled each time pending
+ * deltas are handed to Mongo, and rolled files are deleted once that write has succeeded.
+ * Appends are only written to the file; {@link #sync(long)} forces them to disk as a group commit.
+ * The ledger serializes everything but {@link #sync(long)}, which runs outside its lock.
+ */
+@Slf4j
+final class LedgerWal implements AutoCloseable {
+
+    private static final String PREFIX = "stock-";
+    private static final String SUFFIX = ".wal";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final List<Path> rolled = new ArrayList<>();
+    private final StringBuilder line = new StringBuilder(128);
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private Path current;
+    private long appendedSeq;
+    // Guarded by syncLock
+    private long syncedSeq;
+
+    LedgerWal(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Reads every deduction left by a previous run. Call before the first append.
+     */
+    List<Entry> recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Entry> entries = new ArrayList<>();
+        for (Path file : existingFiles()) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String text;
+                while ((text = reader.readLine()) != null) {
+                    String[] fields = text.split("\t");
+                    if (fields.length < 3 || fields.length % 2 == 0) {
+                        // A torn last line from a crash mid-append; the basket was never acknowledged
+                        log.warn("Skipping unreadable ledger entry in {}", file.getFileName());
+                        continue;
+                    }
+                    long seq = Long.parseLong(fields[0]);
+                    for (int i = 1; i < fields.length; i += 2) {
+                        entries.add(new Entry(seq, fields[i], Integer.parseInt(fields[i + 1])));
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Deletes the files read by {@link #recover()} once their deductions are in Mongo.
+     */
+    void deleteRecovered() throws IOException {
+        for (Path file : existingFiles()) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    synchronized void append(long seq, Map<String, Integer> quantitiesBySku) throws IOException {
+        if (channel == null) {
+            current = directory.resolve(PREFIX + seq + SUFFIX);
+            channel = FileChannel.open(current, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+        line.setLength(0);
+        line.append(seq);
+        quantitiesBySku.forEach((sku, quantity) -> line.append('\t').append(sku).append('\t').append(quantity));
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(CharBuffer.wrap(line.append('\n')));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        appendedSeq = seq;
+    }
+
+    /**
+     * Returns once the entry with the given sequence is on disk, or straight away without fsync.
+     * Callers that queue up behind a running force are covered together by the next one, so concurrent
+     * deductions share an fsync instead of paying for one each.
+     */
+    void sync(long seq) throws IOException {
+        if (!fsync) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedSeq >= seq) {
+                return;
+            }
+            FileChannel target;
+            long upTo;
+            synchronized (this) {
+                target = channel;
+                upTo = appendedSeq;
+            }
+            if (target != null) {
+                try {
+                    target.force(false);
+                } catch (ClosedChannelException e) {
+                    // Rolled meanwhile, and roll() forces a file before closing it
+                }
+            }
+            syncedSeq = upTo;
+        }
+    }
+
+    /**
+     * Seals the current file; later appends go to a new one.
+     */
+    synchronized void roll() throws IOException {
+        if (channel != null) {
+            if (fsync) {
+                channel.force(false);
+            }
+            channel.close();
+            rolled.add(current);
+            channel = null;
+        }
+    }
+
+    /**
+     * Deletes every file sealed by {@link #roll()} so far.
+     */
+    void deleteRolled() throws IOException {
+        for (Path file : rolled) {
+            Files.deleteIfExists(file);
+        }
+        rolled.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private List<Path> existingFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    record Entry(long seq, String sku, int quantity) {
+    }
+}
@@ -0,0 +1,71 @@
+package com.demo.microservices.ledger;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Available quantity of one SKU spread over padded stripes, so concurrent takes mostly CAS different
+ * cache lines. A take that its own stripe cannot cover falls back to a locked rebalance which sees the
+ * whole quantity, so a take is only rejected when the SKU as a whole is short.
+ */
+final class StripedStock {
+
+    // 16 longs = 128 bytes between stripes, enough to keep them on separate cache lines
+    private static final int PADDING = 16;
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+
+    StripedStock(int stripes, long quantity) {
+        this.stripes = Integer.highestOneBit(Math.max(1, stripes));
+        this.cells = new AtomicLongArray(this.stripes * PADDING);
+        spread(quantity);
+    }
+
+    boolean tryTake(int quantity) {
+        int index = stripe();
+        long current = cells.get(index);
+        while (current >= quantity) {
+            if (cells.compareAndSet(index, current, current - quantity)) {
+                return true;
+            }
+            current = cells.get(index);
+        }
+        return takeRebalancing(quantity);
+    }
+
+    void giveBack(int quantity) {
+        cells.getAndAdd(stripe(), quantity);
+    }
+
+    long available() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.get(i * PADDING);
+        }
+        return total;
+    }
+
+    private synchronized boolean takeRebalancing(int quantity) {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.getAndSet(i * PADDING, 0);
+        }
+        boolean taken = total >= quantity;
+        spread(taken ? total - quantity : total);
+        return taken;
+    }
+
+    private void spread(long quantity) {
+        long share = quantity / stripes;
+        long remainder = quantity % stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.getAndAdd(i * PADDING, share + (i < remainder ? 1 : 0));
+        }
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return ((hash >>> 16) & (stripes - 1)) * PADDING;
+    }
+}
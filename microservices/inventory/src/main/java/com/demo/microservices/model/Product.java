@@ -2,13 +2,20 @@ package com.demo.microservices.model;
 
 
 import com.demo.microservices.view.Views;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonView;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Map;
+
 @Document(collection = "products")
+// Covers Views.Basic listings in SKU order, so paged reads never touch the documents
+@CompoundIndex(name = "sku_name_price", def = "{'sku': 1, 'name': 1, 'price': 1}")
 @Data
 @RequiredArgsConstructor
 public class Product {
@@ -17,6 +24,7 @@ public class Product {
     private String id;
 
     @JsonView({Views.Basic.class,Views.Detailed.class})
+    @Indexed(name = "sku_unique", unique = true)
     private String sku;
 
     @JsonView({Views.Basic.class,Views.Detailed.class})
@@ -33,4 +41,16 @@ public class Product {
 
     @JsonView(Views.Detailed.class)
     private int quantity;
+
+    // Set while the in-memory hot-SKU ledger owns the quantity; plain deductions skip such products.
+    @JsonIgnore
+    private boolean hot;
+
+    // Stock held per open reservation id; already subtracted from quantity.
+    @JsonIgnore
+    private Map<String, Integer> reservations;
+
+    // Highest ledger sequence already applied to quantity, which makes ledger replays idempotent.
+    @JsonIgnore
+    private Long ledgerSeq;
 }
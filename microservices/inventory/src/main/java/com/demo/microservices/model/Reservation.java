@@ -0,0 +1,41 @@
+package com.demo.microservices.model;
+
+import com.demo.microservices.utils.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Stock held for a checkout. The held quantity itself lives on each product (reservations.&lt;id&gt;);
+ * this document drives expiry and finishes interrupted commits and releases after a restart.
+ * Once fully committed or released it is kept for a day as a tombstone, so retried commits and
+ * releases get the same answer; a reservation that never held stock is deleted straight away.
+ */
+@Document(collection = "reservations")
+// Unfinished reservations past their expiry, for the sweep
+@CompoundIndex(name = "unfinished_expiry", def = "{'finishedAt': 1, 'expiresAt': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Reservation {
+
+    @Id
+    private String id;
+
+    private Map<String, Integer> lines;
+
+    private ReservationStatus status;
+
+    private Instant expiresAt;
+
+    // Set once the products no longer hold anything for this reservation
+    @Indexed(name = "finished_ttl", expireAfter = "1d")
+    private Instant finishedAt;
+}
@@ -4,9 +4,15 @@ import com.demo.microservices.model.Product;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface InventoryRepository extends MongoRepository<Product, String> {
+public interface InventoryRepository extends MongoRepository<Product, String>, InventoryRepositoryCustom {
     Optional<Product> findBySku(String sku);
+
+    boolean existsBySku(String sku);
+
+    List<Product> findBySkuIn(Collection<String> skus);
 }
@@ -0,0 +1,121 @@
+package com.demo.microservices.repository;
+
+import com.demo.microservices.dto.ProductPrice;
+import com.demo.microservices.model.Product;
+import com.mongodb.bulk.BulkWriteResult;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface InventoryRepositoryCustom {
+
+    /**
+     * Deducts every SKU of a basket in a single ordered bulk write, using a conditional
+     * decrement (quantity >= requested) per line. Products owned by the hot-SKU ledger never apply.
+     * The bulk stops at the first line that cannot be applied; the lines before it are given back
+     * and the failing SKU is returned.
+     *
+     * @param quantitiesBySku quantity to deduct per SKU, in request order
+     * @return the SKU that could not be deducted, or empty when the whole basket was committed
+     */
+    Optional<String> deductAll(Map<String, Integer> quantitiesBySku);
+
+    /**
+     * Deducts each SKU independently in one unordered bulk write, with the same conditional decrement
+     * as {@link #deductAll}. Lines short of stock are reported and nothing is compensated for them; when
+     * the write fails for any other reason the lines that did apply are restored before the exception
+     * propagates.
+     *
+     * @return the SKUs that could not be deducted
+     */
+    Set<String> deductEach(Map<String, Integer> quantitiesBySku);
+
+    /**
+     * Adds the quantities back unconditionally; for the caller that owns the deduction being undone.
+     */
+    void restoreStock(Map<String, Integer> quantitiesBySku);
+
+    /**
+     * Returns up to limit products with a SKU after the given one (from the start when null), in SKU order,
+     * loading only the fields of the given JSON view.
+     */
+    List<Product> findPage(String after, int limit, Class<?> view);
+
+    /**
+     * Streams the whole catalog in SKU order straight from a Mongo cursor, loading only the fields of the
+     * given JSON view. Must be closed by the caller.
+     */
+    Stream<Product> streamAllBySku(Class<?> view);
+
+    /**
+     * Upserts the products keyed on SKU in one unordered bulk write. Products owned by the hot-SKU
+     * ledger are rejected with a duplicate key error.
+     */
+    BulkWriteResult upsertAllBySku(List<Product> products);
+
+    /**
+     * Fetches price and currency for the SKUs with a single $in query; unknown SKUs are left out.
+     */
+    List<ProductPrice> findPricesBySkuIn(Collection<String> skus);
+
+    /**
+     * Fetches the products for the SKUs with a single $in query, loading only the fields of the given JSON view.
+     * Unknown SKUs are left out; results are in no particular order.
+     */
+    List<Product> findAllBySkuIn(Collection<String> skus, Class<?> view);
+
+    /**
+     * Hands the product to the hot-SKU ledger: flags it so plain deductions no longer match and returns
+     * the quantity at that instant, or empty when the SKU does not exist.
+     */
+    Optional<Integer> markHot(String sku);
+
+    /**
+     * Hands the product back to plain deductions.
+     */
+    void clearHot(String sku);
+
+    /**
+     * Clears every ledger flag, e.g. at startup when no ledger state survives.
+     */
+    void clearAllHot();
+
+    /**
+     * Subtracts the coalesced ledger deductions in one unordered bulk write and records seq as applied.
+     * Products that already applied seq or a later one are left untouched.
+     */
+    void applyLedgerDeductions(Map<String, Long> quantitiesBySku, long seq);
+
+    /**
+     * Applied ledger sequence per SKU; SKUs that never had one are left out.
+     */
+    Map<String, Long> findLedgerSeqs(Collection<String> skus);
+
+    /**
+     * Highest ledger sequence applied to any product, 0 when none.
+     */
+    long findMaxLedgerSeq();
+
+    /**
+     * Holds stock for every SKU of a basket under the reservation id: quantity is decremented and the
+     * held amount recorded on the product, all lines or none (applied lines are released on failure).
+     * Re-running it for the same id never holds stock twice.
+     *
+     * @return the SKU that could not be reserved, or empty when the whole basket is held
+     */
+    Optional<String> reserveAll(String reservationId, Map<String, Integer> quantitiesBySku);
+
+    /**
+     * Returns the stock held under the reservation id. Idempotent: products no longer holding it are skipped.
+     */
+    void releaseReservation(String reservationId, Map<String, Integer> quantitiesBySku);
+
+    /**
+     * Makes the stock held under the reservation id permanent by dropping the hold. Idempotent.
+     */
+    void commitReservation(String reservationId, Collection<String> skus);
+}
@@ -0,0 +1,283 @@
+package com.demo.microservices.repository;
+
+import com.demo.microservices.dto.ProductPrice;
+import com.demo.microservices.model.Product;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryRepositoryCustomImpl implements InventoryRepositoryCustom {
+
+    static final String SKU = "sku";
+    static final String QUANTITY = "quantity";
+    static final String HOT = "hot";
+    static final String LEDGER_SEQ = "ledgerSeq";
+    static final String RESERVATIONS = "reservations";
+
+    // ConversionFailure, raised on purpose by a deduction line that cannot apply (see deduction())
+    static final int SHORTFALL_ERROR = 241;
+
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<String> deductAll(Map<String, Integer> quantitiesBySku) {
+        if (quantitiesBySku.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Map.Entry<String, Integer>> lines = new ArrayList<>(quantitiesBySku.entrySet());
+
+        BulkOperations deductions = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Product.class);
+        lines.forEach(line -> deductions.upsert(bySku(line.getKey()), deduction(line.getValue())));
+        try {
+            deductions.execute();
+            return Optional.empty();
+        } catch (BulkOperationException e) {
+            // Ordered: every line before the first error was applied, none after it ran
+            int failedAt = e.getErrors().isEmpty() ? lines.size() : e.getErrors().get(0).getIndex();
+            Map<String, Integer> applied = new LinkedHashMap<>();
+            lines.subList(0, failedAt).forEach(line -> applied.put(line.getKey(), line.getValue()));
+            restoreStock(applied);
+            if (!applied.isEmpty()) {
+                log.info("Compensated {} partially deducted SKUs", applied.size());
+            }
+            if (failedAt == lines.size() || e.getErrors().get(0).getCode() != SHORTFALL_ERROR) {
+                throw e;
+            }
+            return Optional.of(lines.get(failedAt).getKey());
+        }
+    }
+
+    @Override
+    public Set<String> deductEach(Map<String, Integer> quantitiesBySku) {
+        if (quantitiesBySku.isEmpty()) {
+            return Set.of();
+        }
+        List<String> skus = new ArrayList<>(quantitiesBySku.keySet());
+
+        BulkOperations deductions = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        skus.forEach(sku -> deductions.upsert(bySku(sku), deduction(quantitiesBySku.get(sku))));
+        try {
+            deductions.execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            // Unordered: exactly the reported lines were not applied
+            Set<String> failed = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(skus.get(error.getIndex()));
+            }
+            if (e.getErrors().isEmpty() || e.getErrors().stream().anyMatch(error -> error.getCode() != SHORTFALL_ERROR)) {
+                // The caller fails every deduction in the batch, so the lines that did apply go back first
+                Map<String, Integer> applied = new LinkedHashMap<>(quantitiesBySku);
+                applied.keySet().removeAll(failed);
+                restoreStock(applied);
+                if (!applied.isEmpty()) {
+                    log.info("Compensated {} deducted SKUs of a failed bulk write", applied.size());
+                }
+                throw e;
+            }
+            return failed;
+        }
+    }
+
+    @Override
+    public void restoreStock(Map<String, Integer> quantitiesBySku) {
+        if (quantitiesBySku.isEmpty()) {
+            return;
+        }
+        BulkOperations restores = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        quantitiesBySku.forEach((sku, quantity) -> restores.updateOne(bySku(sku), new Update().inc(QUANTITY, quantity)));
+        restores.execute();
+    }
+
+    private static Query bySku(String sku) {
+        return Query.query(Criteria.where(SKU).is(sku));
+    }
+
+    /**
+     * Conditional decrement of one line, as an update pipeline run through an upsert. When the product
+     * is short, owned by the hot-SKU ledger or missing (the upsert then starts from an empty document),
+     * the pipeline fails the write with {@link #SHORTFALL_ERROR} instead of matching nothing, so a bulk
+     * reports exactly which lines did not apply and nothing is ever inserted.
+     */
+    private static AggregationUpdate deduction(int quantity) {
+        Document applies = new Document("$and", List.of(
+                new Document("$ne", List.of("$" + HOT, true)),
+                new Document("$gte", List.of("$" + QUANTITY, quantity))));
+        // Depends on the document, so the server only evaluates it when the line cannot apply
+        Document shortfall = new Document("$toInt", new Document("$concat", List.of("INSUFFICIENT_STOCK:", "$" + SKU)));
+        Document quantityAfter = new Document("$cond", List.of(applies,
+                new Document("$subtract", List.of("$" + QUANTITY, quantity)), shortfall));
+        AggregationOperation set = context -> new Document("$set", new Document(QUANTITY, quantityAfter));
+        return AggregationUpdate.from(List.of(set));
+    }
+
+    @Override
+    public List<Product> findPage(String after, int limit, Class<?> view) {
+        Query query = after == null ? new Query() : Query.query(Criteria.where(SKU).gt(after));
+        query.with(Sort.by(SKU)).limit(limit);
+        return mongoTemplate.find(ProductProjection.apply(query, view), Product.class);
+    }
+
+    @Override
+    public Stream<Product> streamAllBySku(Class<?> view) {
+        Query query = new Query()
+                .with(Sort.by(SKU))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(ProductProjection.apply(query, view), Product.class);
+    }
+
+    @Override
+    public BulkWriteResult upsertAllBySku(List<Product> products) {
+        BulkOperations upserts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (Product product : products) {
+            // A product the hot-SKU ledger took over meanwhile does not match; the upsert then hits the
+            // unique SKU index and the row is reported as rejected instead of overwriting ledger stock.
+            upserts.upsert(Query.query(Criteria.where(SKU).is(product.getSku()).and(HOT).ne(true)), new Update()
+                    .set("name", product.getName())
+                    .set("description", product.getDescription())
+                    .set("price", product.getPrice())
+                    .set("currency", product.getCurrency())
+                    .set(QUANTITY, product.getQuantity()));
+        }
+        return upserts.execute();
+    }
+
+    @Override
+    public List<ProductPrice> findPricesBySkuIn(Collection<String> skus) {
+        Query query = Query.query(Criteria.where(SKU).in(skus));
+        query.fields().include(SKU, "price", "currency");
+        return mongoTemplate.find(query, Product.class).stream()
+                .map(product -> new ProductPrice(product.getSku(), product.getPrice(), product.getCurrency()))
+                .toList();
+    }
+
+    @Override
+    public List<Product> findAllBySkuIn(Collection<String> skus, Class<?> view) {
+        Query query = ProductProjection.apply(Query.query(Criteria.where(SKU).in(skus)), view);
+        return mongoTemplate.find(query, Product.class);
+    }
+
+    @Override
+    public Optional<Integer> markHot(String sku) {
+        Query query = Query.query(Criteria.where(SKU).is(sku));
+        query.fields().include(SKU, QUANTITY);
+        Product product = mongoTemplate.findAndModify(query, new Update().set(HOT, true),
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        return Optional.ofNullable(product).map(Product::getQuantity);
+    }
+
+    @Override
+    public void clearHot(String sku) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where(SKU).is(sku)), new Update().unset(HOT), Product.class);
+    }
+
+    @Override
+    public void clearAllHot() {
+        mongoTemplate.updateMulti(Query.query(Criteria.where(HOT).is(true)), new Update().unset(HOT), Product.class);
+    }
+
+    @Override
+    public void applyLedgerDeductions(Map<String, Long> quantitiesBySku, long seq) {
+        if (quantitiesBySku.isEmpty()) {
+            return;
+        }
+        BulkOperations deductions = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        // "not >= seq" also matches products that never had a ledger sequence
+        quantitiesBySku.forEach((sku, quantity) -> deductions.updateOne(
+                Query.query(Criteria.where(SKU).is(sku).and(LEDGER_SEQ).not().gte(seq)),
+                new Update().inc(QUANTITY, -quantity).set(LEDGER_SEQ, seq)));
+        deductions.execute();
+    }
+
+    @Override
+    public Map<String, Long> findLedgerSeqs(Collection<String> skus) {
+        Query query = Query.query(Criteria.where(SKU).in(skus).and(LEDGER_SEQ).exists(true));
+        query.fields().include(SKU, LEDGER_SEQ);
+        return mongoTemplate.find(query, Product.class).stream()
+                .collect(Collectors.toMap(Product::getSku, Product::getLedgerSeq));
+    }
+
+    @Override
+    public long findMaxLedgerSeq() {
+        Query query = Query.query(Criteria.where(LEDGER_SEQ).exists(true))
+                .with(Sort.by(Sort.Direction.DESC, LEDGER_SEQ))
+                .limit(1);
+        query.fields().include(LEDGER_SEQ);
+        Product product = mongoTemplate.findOne(query, Product.class);
+        return product != null ? product.getLedgerSeq() : 0;
+    }
+
+    @Override
+    public Optional<String> reserveAll(String reservationId, Map<String, Integer> quantitiesBySku) {
+        if (quantitiesBySku.isEmpty()) {
+            return Optional.empty();
+        }
+        String hold = RESERVATIONS + "." + reservationId;
+        BulkOperations reservations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Product.class);
+        quantitiesBySku.forEach((sku, quantity) -> reservations.updateOne(
+                Query.query(Criteria.where(SKU).is(sku).and(HOT).ne(true).and(QUANTITY).gte(quantity).and(hold).exists(false)),
+                new Update().inc(QUANTITY, -quantity).set(hold, quantity)));
+        BulkWriteResult result = reservations.execute();
+        if (result.getMatchedCount() == quantitiesBySku.size()) {
+            return Optional.empty();
+        }
+
+        // Either a line was short, or this is a retry and some holds already exist: look at what we hold
+        Query heldQuery = Query.query(Criteria.where(SKU).in(quantitiesBySku.keySet()).and(hold).exists(true));
+        heldQuery.fields().include(SKU);
+        Set<String> held = mongoTemplate.find(heldQuery, Product.class).stream()
+                .map(Product::getSku)
+                .collect(Collectors.toSet());
+        if (held.size() == quantitiesBySku.size()) {
+            return Optional.empty();
+        }
+        releaseReservation(reservationId, quantitiesBySku);
+        return quantitiesBySku.keySet().stream()
+                .filter(sku -> !held.contains(sku))
+                .findFirst();
+    }
+
+    @Override
+    public void releaseReservation(String reservationId, Map<String, Integer> quantitiesBySku) {
+        String hold = RESERVATIONS + "." + reservationId;
+        BulkOperations releases = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        quantitiesBySku.forEach((sku, quantity) -> releases.updateOne(
+                Query.query(Criteria.where(SKU).is(sku).and(hold).exists(true)),
+                new Update().inc(QUANTITY, quantity).unset(hold)));
+        releases.execute();
+    }
+
+    @Override
+    public void commitReservation(String reservationId, Collection<String> skus) {
+        String hold = RESERVATIONS + "." + reservationId;
+        mongoTemplate.updateMulti(Query.query(Criteria.where(SKU).in(skus).and(hold).exists(true)),
+                new Update().unset(hold), Product.class);
+    }
+}
@@ -0,0 +1,54 @@
+package com.demo.microservices.repository;
+
+import com.demo.microservices.model.Product;
+import com.fasterxml.jackson.annotation.JsonView;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mongo field projections derived from the {@link JsonView} annotations on {@link Product},
+ * so a query for a view loads exactly the fields that view serializes.
+ */
+public final class ProductProjection {
+
+    private static final String ID = "id";
+
+    private static final Map<Class<?>, String[]> FIELDS_BY_VIEW = new ConcurrentHashMap<>();
+
+    private ProductProjection() {
+    }
+
+    /**
+     * Restricts the query to the fields visible in the view. The _id is dropped too when the view does not
+     * show it, which lets Mongo answer from an index holding exactly those fields.
+     */
+    public static Query apply(Query query, Class<?> view) {
+        String[] fields = fieldsFor(view);
+        query.fields().include(fields);
+        if (!Arrays.asList(fields).contains(ID)) {
+            query.fields().exclude(ID);
+        }
+        return query;
+    }
+
+    public static String[] fieldsFor(Class<?> view) {
+        return FIELDS_BY_VIEW.computeIfAbsent(view, ProductProjection::resolve);
+    }
+
+    private static String[] resolve(Class<?> view) {
+        List<String> fields = new ArrayList<>();
+        for (Field field : Product.class.getDeclaredFields()) {
+            JsonView annotation = field.getAnnotation(JsonView.class);
+            if (annotation != null && Arrays.stream(annotation.value()).anyMatch(type -> type.isAssignableFrom(view))) {
+                fields.add(field.getName());
+            }
+        }
+        return fields.toArray(String[]::new);
+    }
+}
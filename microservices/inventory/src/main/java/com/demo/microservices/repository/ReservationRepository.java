@@ -0,0 +1,16 @@
+package com.demo.microservices.repository;
+
+import com.demo.microservices.model.Reservation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ReservationRepository extends MongoRepository<Reservation, String>, ReservationRepositoryCustom {
+
+    List<Reservation> findByFinishedAtIsNull();
+
+    List<Reservation> findTop500ByFinishedAtIsNullAndExpiresAtBefore(Instant expiredBefore);
+}
@@ -0,0 +1,22 @@
+package com.demo.microservices.repository;
+
+import com.demo.microservices.utils.ReservationStatus;
+
+import java.time.Instant;
+
+public interface ReservationRepositoryCustom {
+
+    /**
+     * Atomically moves a reservation from one status to another. Exactly one caller wins a race,
+     * so a reservation is never both committed and released.
+     *
+     * @param unexpiredAt when set, only reservations expiring after this instant are moved
+     * @return whether this call made the transition
+     */
+    boolean transition(String id, ReservationStatus from, ReservationStatus to, Instant unexpiredAt);
+
+    /**
+     * Records that the products no longer hold anything for the reservation; the document then expires on its own.
+     */
+    void markFinished(String id);
+}
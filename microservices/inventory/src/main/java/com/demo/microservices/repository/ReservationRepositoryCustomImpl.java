@@ -0,0 +1,33 @@
+package com.demo.microservices.repository;
+
+import com.demo.microservices.model.Reservation;
+import com.demo.microservices.utils.ReservationStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+@RequiredArgsConstructor
+public class ReservationRepositoryCustomImpl implements ReservationRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean transition(String id, ReservationStatus from, ReservationStatus to, Instant unexpiredAt) {
+        Criteria criteria = Criteria.where("_id").is(id).and("status").is(from);
+        if (unexpiredAt != null) {
+            criteria = criteria.and("expiresAt").gt(unexpiredAt);
+        }
+        return mongoTemplate.updateFirst(Query.query(criteria), Update.update("status", to), Reservation.class)
+                .getModifiedCount() == 1;
+    }
+
+    @Override
+    public void markFinished(String id) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id).and("finishedAt").exists(false)),
+                Update.update("finishedAt", Instant.now()), Reservation.class);
+    }
+}
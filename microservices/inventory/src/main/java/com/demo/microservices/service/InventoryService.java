@@ -1,20 +1,35 @@
 package com.demo.microservices.service;
 
+import com.demo.microservices.dto.CacheStatsResponse;
 import com.demo.microservices.dto.DeductRequest;
 import com.demo.microservices.dto.DeductSuccess;
+import com.demo.microservices.dto.ProductBatch;
+import com.demo.microservices.dto.ProductPage;
+import com.demo.microservices.dto.ProductPrice;
 import com.demo.microservices.exception.InsufficientStockException;
 import com.demo.microservices.model.Product;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 
 public interface InventoryService {
 
     List<Product> getAllProducts();
 
+    ProductPage getProductsPage(String after, int limit);
+
+    void streamAllProducts(Consumer<Product> consumer);
+
     Product getProductBySku(String sku);
 
+    ProductBatch getProductsBySku(List<String> skus, Class<?> view);
+
+    List<ProductPrice> getPrices(List<String> skus);
+
     DeductSuccess deductStock(List<DeductRequest> request) throws InsufficientStockException;
 
      void addProducts(List<Product> products);
+
+    List<CacheStatsResponse> getCacheStats();
 }
@@ -0,0 +1,18 @@
+package com.demo.microservices.service;
+
+import com.demo.microservices.dto.IngestionReport;
+import com.demo.microservices.model.Product;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+public interface ProductIngestionService {
+
+    /**
+     * Parses a JSON array of products incrementally and upserts them by SKU in bounded batches.
+     */
+    IngestionReport importProducts(InputStream json) throws IOException;
+
+    IngestionReport importProducts(List<Product> products);
+}
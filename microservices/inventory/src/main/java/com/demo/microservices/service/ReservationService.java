@@ -0,0 +1,34 @@
+package com.demo.microservices.service;
+
+import com.demo.microservices.dto.DeductRequest;
+import com.demo.microservices.dto.ReservationResponse;
+import com.demo.microservices.exception.InsufficientStockException;
+import com.demo.microservices.exception.ReservationStateException;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Two-phase stock deduction: stock is held by {@link #reserve}, then either made permanent by
+ * {@link #commit} or returned by {@link #release}. Reservations that are neither committed nor
+ * released are returned automatically once their TTL passes.
+ */
+public interface ReservationService {
+
+    /**
+     * @param ttl           how long to hold the stock; null for the configured default
+     * @param reservationId caller-chosen id that makes retries safe: a reservation already held under it
+     *                      is returned instead of holding stock again; null to generate one
+     */
+    ReservationResponse reserve(List<DeductRequest> request, Duration ttl, String reservationId) throws InsufficientStockException;
+
+    /**
+     * Idempotent; fails when the reservation expired or was released.
+     */
+    void commit(String reservationId) throws ReservationStateException;
+
+    /**
+     * Idempotent; fails when the reservation was already committed.
+     */
+    void release(String reservationId) throws ReservationStateException;
+}
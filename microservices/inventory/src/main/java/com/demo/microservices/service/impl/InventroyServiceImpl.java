@@ -1,32 +1,68 @@
 package com.demo.microservices.service.impl;
 
+import com.demo.microservices.batching.DeductionBatcher;
+import com.demo.microservices.cache.ProductCache;
+import com.demo.microservices.dto.CacheStatsResponse;
 import com.demo.microservices.dto.DeductRequest;
 import com.demo.microservices.dto.DeductSuccess;
+import com.demo.microservices.dto.ProductBatch;
+import com.demo.microservices.dto.ProductPage;
+import com.demo.microservices.dto.ProductPrice;
 import com.demo.microservices.exception.InsufficientStockException;
+import com.demo.microservices.ledger.HotStockLedger;
 import com.demo.microservices.model.Product;
 import com.demo.microservices.repository.InventoryRepository;
 import com.demo.microservices.service.InventoryService;
+import com.demo.microservices.service.ProductIngestionService;
 import com.demo.microservices.utils.InventoryDeductionStatus;
+import com.demo.microservices.view.Views;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class InventroyServiceImpl implements InventoryService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     InventoryRepository repository;
 
+    @Autowired
+    ProductCache productCache;
+
+    @Autowired
+    ProductIngestionService ingestionService;
+
+    // Present only with inventory.hot-sku.enabled=true
+    @Autowired(required = false)
+    HotStockLedger hotStockLedger;
+
+    // Present only with inventory.deduct-batching.enabled=true
+    @Autowired(required = false)
+    DeductionBatcher deductionBatcher;
+
     @Override
     @Transactional(readOnly = true)
     public List<Product> getAllProducts() {
         log.info("Received request to fetch all products");
         try {
-            List<Product> products = repository.findAll();
+            List<Product> products = productCache.getAll(repository::findAll, repository::findBySkuIn);
             if (products.isEmpty()) {
                 log.warn("No products found in the inventory");
             } else {
@@ -39,33 +75,107 @@ public class InventroyServiceImpl implements InventoryService {
         }
     }
 
+    @Override
+    public ProductPage getProductsPage(String after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page follows without a count query
+        List<Product> rows = repository.findPage(after == null || after.isBlank() ? null : after,
+                pageSize + 1, Views.Basic.class);
+        if (rows.size() <= pageSize) {
+            return new ProductPage(rows, null);
+        }
+        List<Product> items = rows.subList(0, pageSize);
+        return new ProductPage(items, items.get(pageSize - 1).getSku());
+    }
+
+    @Override
+    public void streamAllProducts(Consumer<Product> consumer) {
+        log.info("Received request to stream all products");
+        try (Stream<Product> products = repository.streamAllBySku(Views.Basic.class)) {
+            products.forEach(consumer);
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Product getProductBySku(String sku) {
         log.info("Received request to fetch product with SKU: {}",sku);
         try{
-            return repository.findBySku(sku).orElseThrow(() -> new RuntimeException("No product found with SKU: " + sku));
+            Product product = productCache.get(sku, () -> repository.findBySku(sku)).orElseThrow(() -> new RuntimeException("No product found with SKU: " + sku));
+            if (hotStockLedger != null) {
+                // Mongo lags the ledger by up to one flush interval
+                hotStockLedger.available(sku).ifPresent(available -> product.setQuantity(Math.toIntExact(available)));
+            }
+            return product;
         } catch (Exception e) {
             log.error("Error fetching product with SKU {}: {}", sku, e.getMessage());
             throw new RuntimeException(e);
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public ProductBatch getProductsBySku(List<String> skus, Class<?> view) {
+        log.info("Received request to fetch {} products by SKU", skus.size());
+        Map<String, Product> found = new HashMap<>();
+        for (Product product : repository.findAllBySkuIn(new LinkedHashSet<>(skus), view)) {
+            found.put(product.getSku(), product);
+        }
+        List<Product> items = new ArrayList<>(found.size());
+        List<String> missing = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String sku : skus) {
+            if (!seen.add(sku)) {
+                continue;
+            }
+            Product product = found.get(sku);
+            if (product != null) {
+                items.add(product);
+            } else {
+                missing.add(sku);
+            }
+        }
+        return new ProductBatch(items, missing);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductPrice> getPrices(List<String> skus) {
+        log.info("Received request to fetch prices for {} SKUs", skus.size());
+        return repository.findPricesBySkuIn(skus);
+    }
+
     @Override
     @Transactional
     public  DeductSuccess deductStock(List<DeductRequest> request) {
+        return deductStock(request, deductionBatcher != null ? deductionBatcher::deduct : repository::deductAll);
+    }
+
+    /**
+     * Deducts through the given Mongo deduction; benchmarks pass an in-memory store here.
+     */
+    DeductSuccess deductStock(List<DeductRequest> request, Function<Map<String, Integer>, Optional<String>> mongoDeduction) {
         log.info(" Received request to deduct stock for {} products", request.size());
         try{
+            Map<String, Integer> quantitiesBySku = new LinkedHashMap<>();
             for (DeductRequest r : request) {
-                Product p = repository.findBySku(r.getSku()).orElseThrow(() -> new RuntimeException("No product found with SKU: " + r.getSku()));
-                if (p.getQuantity() < r.getDeductQuantity()) {
-                    log.warn("INSUFFICIENT_STOCK for SKU: {}", r.getSku());
-                    throw new InsufficientStockException(r.getSku());
+                if (r.getDeductQuantity() < 0) {
+                    throw new IllegalArgumentException("Negative deduct quantity for SKU: " + r.getSku());
                 }
-                p.setQuantity(p.getQuantity() - r.getDeductQuantity());
-                repository.save(p);
-                log.info("Deducted {} units from SKU: {}. New stock: {}", r.getDeductQuantity(), r.getSku(), p.getQuantity());
+                quantitiesBySku.merge(r.getSku(), r.getDeductQuantity(), Integer::sum);
             }
+            Optional<String> failedSku = hotStockLedger != null
+                    ? hotStockLedger.deduct(quantitiesBySku, mongoDeduction)
+                    : mongoDeduction.apply(quantitiesBySku);
+            if (failedSku.isPresent()) {
+                String sku = failedSku.get();
+                if (!repository.existsBySku(sku)) {
+                    throw new RuntimeException("No product found with SKU: " + sku);
+                }
+                log.warn("INSUFFICIENT_STOCK for SKU: {}", sku);
+                throw new InsufficientStockException(sku);
+            }
+            productCache.applyDeductions(quantitiesBySku);
             log.info("Stock deduction completed successfully for all requested products");
             return new DeductSuccess(InventoryDeductionStatus.DEDUCTION_COMMITTED.getApiValue());
         } catch (InsufficientStockException e) {
@@ -80,6 +190,11 @@ public class InventroyServiceImpl implements InventoryService {
     @Override
     @Transactional
     public void addProducts(List<Product> products) {
-        repository.saveAll(products);
+        ingestionService.importProducts(products);
+    }
+
+    @Override
+    public List<CacheStatsResponse> getCacheStats() {
+        return productCache.stats();
     }
 }
@@ -0,0 +1,129 @@
+package com.demo.microservices.service.impl;
+
+import com.demo.microservices.cache.ProductCache;
+import com.demo.microservices.config.IngestionProperties;
+import com.demo.microservices.dto.IngestionReport;
+import com.demo.microservices.ledger.HotStockLedger;
+import com.demo.microservices.model.Product;
+import com.demo.microservices.repository.InventoryRepository;
+import com.demo.microservices.service.ProductIngestionService;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductIngestionServiceImpl implements ProductIngestionService {
+
+    private final InventoryRepository repository;
+    private final ProductCache productCache;
+    private final IngestionProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<HotStockLedger> hotStockLedger;
+
+    @Override
+    public IngestionReport importProducts(InputStream json) throws IOException {
+        IngestionReport report = new IngestionReport();
+        long start = System.nanoTime();
+        List<Product> batch = new ArrayList<>(properties.getBatchSize());
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of products");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    // Also covers a body cut off before the closing bracket; batches already flushed stay written
+                    throw new IllegalArgumentException("Expected a product object at row " + (report.getRowsRead() + 1) + ", got " + token);
+                }
+                accept(objectMapper.readValue(parser, Product.class), batch, report);
+            }
+        }
+        flush(batch, report);
+        return finish(report, start);
+    }
+
+    @Override
+    public IngestionReport importProducts(List<Product> products) {
+        IngestionReport report = new IngestionReport();
+        long start = System.nanoTime();
+        List<Product> batch = new ArrayList<>(Math.min(products.size(), properties.getBatchSize()));
+        for (Product product : products) {
+            accept(product, batch, report);
+        }
+        flush(batch, report);
+        return finish(report, start);
+    }
+
+    private void accept(Product product, List<Product> batch, IngestionReport report) {
+        report.setRowsRead(report.getRowsRead() + 1);
+        if (product.getSku() == null || product.getSku().isBlank()) {
+            recordFailure(report, 1, "Row " + report.getRowsRead() + " has no SKU");
+            return;
+        }
+        batch.add(product);
+        if (batch.size() >= properties.getBatchSize()) {
+            flush(batch, report);
+        }
+    }
+
+    private void flush(List<Product> batch, IngestionReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        int batchNumber = report.getBatches() + 1;
+        BulkWriteResult result;
+        HotStockLedger ledger = hotStockLedger.getIfAvailable();
+        if (ledger != null) {
+            ledger.handBack(batch.stream().map(Product::getSku).toList());
+        }
+        try {
+            result = repository.upsertAllBySku(batch);
+        } catch (BulkOperationException e) {
+            result = e.getResult();
+            recordFailure(report, e.getErrors().size(),
+                    "Batch " + batchNumber + ": " + e.getErrors().size() + " rows rejected, first: " + e.getErrors().get(0).getMessage());
+        }
+        report.setUpserted(report.getUpserted() + result.getUpserts().size());
+        report.setModified(report.getModified() + result.getModifiedCount());
+        report.setBatches(batchNumber);
+
+        productCache.invalidate(batch.stream().map(Product::getSku).toList());
+
+        long micros = Math.max(1, (System.nanoTime() - start) / 1_000);
+        log.info("Ingested batch {} ({} rows) in {} ms, {} rows/s",
+                batchNumber, batch.size(), micros / 1_000, batch.size() * 1_000_000L / micros);
+        batch.clear();
+    }
+
+    private void recordFailure(IngestionReport report, long rows, String message) {
+        report.setRowsFailed(report.getRowsFailed() + rows);
+        if (report.getErrors().size() < properties.getMaxReportedErrors()) {
+            report.getErrors().add(message);
+        }
+        log.warn("Product ingestion failure: {}", message);
+    }
+
+    private IngestionReport finish(IngestionReport report, long start) {
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        report.setElapsedMillis(millis);
+        report.setRowsPerSecond(report.getRowsRead() * 1000 / millis);
+        log.info("Product ingestion finished: {} rows in {} batches, {} failed, {} ms",
+                report.getRowsRead(), report.getBatches(), report.getRowsFailed(), millis);
+        return report;
+    }
+}
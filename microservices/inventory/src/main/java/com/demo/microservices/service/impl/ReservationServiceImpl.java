@@ -0,0 +1,331 @@
+package com.demo.microservices.service.impl;
+
+import com.demo.microservices.cache.ProductCache;
+import com.demo.microservices.config.ReservationProperties;
+import com.demo.microservices.dto.DeductRequest;
+import com.demo.microservices.dto.ReservationResponse;
+import com.demo.microservices.exception.InsufficientStockException;
+import com.demo.microservices.exception.ReservationStateException;
+import com.demo.microservices.ledger.HotStockLedger;
+import com.demo.microservices.model.Reservation;
+import com.demo.microservices.repository.InventoryRepository;
+import com.demo.microservices.repository.ReservationRepository;
+import com.demo.microservices.service.ReservationService;
+import com.demo.microservices.utils.ReservationStatus;
+import com.demo.microservices.utils.TimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Reservations are recorded in Mongo before any stock is held, and every step after that is an
+ * idempotent single-document update, so a crash at any point is finished by the startup recovery
+ * or the periodic sweep, and held stock is never lost. Expiry is driven by an in-memory
+ * {@link TimingWheel}; the sweep covers reservations whose timer lived on a replica that is gone.
+ * The status transition in Mongo decides races between commit, release and expiry, also across replicas.
+ */
+@Service
+@Slf4j
+public class ReservationServiceImpl implements ReservationService, InitializingBean, DisposableBean {
+
+    private static final Duration EXPIRY_RETRY_DELAY = Duration.ofSeconds(1);
+
+    // Ids end up in product field paths (reservations.<id>), so no dots or dollar signs
+    private static final Pattern RESERVATION_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final InventoryRepository inventoryRepository;
+    private final ReservationRepository reservationRepository;
+    private final ProductCache productCache;
+    private final ReservationProperties properties;
+    private final ObjectProvider<HotStockLedger> hotStockLedger;
+    private final TimingWheel<String> expiries;
+    private final Map<String, TimingWheel.Timeout<String>> timeouts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker;
+
+    public ReservationServiceImpl(InventoryRepository inventoryRepository, ReservationRepository reservationRepository,
+                                  ProductCache productCache, ReservationProperties properties,
+                                  ObjectProvider<HotStockLedger> hotStockLedger) {
+        this.inventoryRepository = inventoryRepository;
+        this.reservationRepository = reservationRepository;
+        this.productCache = productCache;
+        this.properties = properties;
+        this.hotStockLedger = hotStockLedger;
+        this.expiries = new TimingWheel<>(properties.getTick().toMillis(), System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public ReservationResponse reserve(List<DeductRequest> request, Duration ttl, String reservationId) {
+        if (reservationId != null && !RESERVATION_ID.matcher(reservationId).matches()) {
+            throw new IllegalArgumentException("Invalid reservation id: " + reservationId);
+        }
+        Map<String, Integer> quantitiesBySku = new LinkedHashMap<>();
+        for (DeductRequest r : request) {
+            if (r.getDeductQuantity() < 0) {
+                throw new IllegalArgumentException("Negative deduct quantity for SKU: " + r.getSku());
+            }
+            quantitiesBySku.merge(r.getSku(), r.getDeductQuantity(), Integer::sum);
+        }
+        Duration holdFor = ttl == null ? properties.getTtl()
+                : ttl.compareTo(properties.getMaxTtl()) > 0 ? properties.getMaxTtl() : ttl;
+
+        String id = reservationId != null ? reservationId : UUID.randomUUID().toString();
+        Instant expiresAt = Instant.now().plus(holdFor);
+        try {
+            reservationRepository.insert(new Reservation(id, quantitiesBySku, ReservationStatus.HOLDING, expiresAt, null));
+        } catch (DuplicateKeyException e) {
+            // A retry of a reservation we already hold (or already committed)
+            Reservation existing = reservationRepository.findById(id)
+                    .filter(reservation -> reservation.getStatus() != ReservationStatus.RELEASED)
+                    .orElseThrow(() -> new ReservationStateException(ReservationStateException.EXPIRED, id));
+            if (existing.getStatus() == ReservationStatus.HOLDING) {
+                // The first attempt is still taking its holds; answering now would hand out a reservation that may fail
+                throw new ReservationStateException(ReservationStateException.IN_PROGRESS, id);
+            }
+            log.info("Replaying reservation {}", id);
+            return new ReservationResponse(id, existing.getExpiresAt());
+        }
+
+        // Armed before any stock is held, so holds left by a failure below are still released on time
+        schedule(id, expiresAt);
+        Optional<String> failedSku;
+        try {
+            // Holds are taken in Mongo; SKUs the hot ledger owns are handed back first
+            HotStockLedger ledger = hotStockLedger.getIfAvailable();
+            if (ledger != null) {
+                ledger.handBack(quantitiesBySku.keySet());
+            }
+            failedSku = inventoryRepository.reserveAll(id, quantitiesBySku);
+        } catch (RuntimeException e) {
+            try {
+                abandon(id, quantitiesBySku);
+            } catch (RuntimeException releaseFailure) {
+                // Still HOLDING with its expiry armed, so the timer or the sweep returns the holds
+                e.addSuppressed(releaseFailure);
+            }
+            throw e;
+        }
+        if (failedSku.isPresent()) {
+            abandon(id, quantitiesBySku);
+            String sku = failedSku.get();
+            if (!inventoryRepository.existsBySku(sku)) {
+                throw new RuntimeException("No product found with SKU: " + sku);
+            }
+            log.warn("INSUFFICIENT_STOCK for SKU {} while reserving", sku);
+            throw new InsufficientStockException(sku);
+        }
+        if (!reservationRepository.transition(id, ReservationStatus.HOLDING, ReservationStatus.RESERVED, null)) {
+            // Expired while the holds were being taken; holds taken after the expiry released them are returned here
+            inventoryRepository.releaseReservation(id, quantitiesBySku);
+            throw new ReservationStateException(ReservationStateException.EXPIRED, id);
+        }
+        productCache.applyDeductions(quantitiesBySku);
+        log.info("Reserved {} SKUs under {} until {}", quantitiesBySku.size(), id, expiresAt);
+        return new ReservationResponse(id, expiresAt);
+    }
+
+    @Override
+    public void commit(String reservationId) {
+        Reservation reservation = reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new ReservationStateException(ReservationStateException.NOT_FOUND, reservationId));
+        if (reservation.getStatus() == ReservationStatus.HOLDING) {
+            throw new ReservationStateException(ReservationStateException.IN_PROGRESS, reservationId);
+        }
+        if (reservation.getStatus() == ReservationStatus.RESERVED) {
+            if (reservationRepository.transition(reservationId, ReservationStatus.RESERVED, ReservationStatus.COMMITTED, Instant.now())) {
+                reservation.setStatus(ReservationStatus.COMMITTED);
+            } else {
+                // Lost the race to expiry or a release, or already past its expiry; re-read to report which
+                reservation = reservationRepository.findById(reservationId)
+                        .orElseThrow(() -> new ReservationStateException(ReservationStateException.EXPIRED, reservationId));
+            }
+        }
+        if (reservation.getStatus() != ReservationStatus.COMMITTED) {
+            throw new ReservationStateException(ReservationStateException.EXPIRED, reservationId);
+        }
+        cancelExpiry(reservationId);
+        if (reservation.getFinishedAt() == null) {
+            finishCommit(reservation);
+        }
+    }
+
+    @Override
+    public void release(String reservationId) {
+        Optional<Reservation> found = reservationRepository.findById(reservationId);
+        if (found.isEmpty()) {
+            // Never held anything (or the tombstone is gone): nothing to return
+            return;
+        }
+        Reservation reservation = found.get();
+        if (reservation.getStatus() == ReservationStatus.COMMITTED) {
+            throw new ReservationStateException(ReservationStateException.ALREADY_COMMITTED, reservationId);
+        }
+        if (reservation.getStatus() == ReservationStatus.HOLDING) {
+            throw new ReservationStateException(ReservationStateException.IN_PROGRESS, reservationId);
+        }
+        if (reservation.getStatus() == ReservationStatus.RESERVED
+                && !reservationRepository.transition(reservationId, ReservationStatus.RESERVED, ReservationStatus.RELEASED, null)) {
+            release(reservationId);
+            return;
+        }
+        cancelExpiry(reservationId);
+        if (reservation.getFinishedAt() == null) {
+            finishRelease(reservation);
+        }
+    }
+
+    /**
+     * Drops a reservation whose holds were never completed, so the caller may retry under the same id.
+     * Expiry takes over when it already moved the reservation on.
+     */
+    private void abandon(String reservationId, Map<String, Integer> quantitiesBySku) {
+        if (!reservationRepository.transition(reservationId, ReservationStatus.HOLDING, ReservationStatus.RELEASED, null)) {
+            return;
+        }
+        inventoryRepository.releaseReservation(reservationId, quantitiesBySku);
+        reservationRepository.deleteById(reservationId);
+        cancelExpiry(reservationId);
+    }
+
+    private void finishCommit(Reservation reservation) {
+        inventoryRepository.commitReservation(reservation.getId(), reservation.getLines().keySet());
+        reservationRepository.markFinished(reservation.getId());
+        log.info("Committed reservation {}", reservation.getId());
+    }
+
+    private void finishRelease(Reservation reservation) {
+        inventoryRepository.releaseReservation(reservation.getId(), reservation.getLines());
+        reservationRepository.markFinished(reservation.getId());
+        Map<String, Integer> restored = new LinkedHashMap<>();
+        reservation.getLines().forEach((sku, quantity) -> restored.put(sku, -quantity));
+        productCache.applyDeductions(restored);
+        log.info("Released reservation {}", reservation.getId());
+    }
+
+    private void schedule(String reservationId, Instant expiresAt) {
+        timeouts.put(reservationId, expiries.schedule(reservationId, expiresAt.toEpochMilli()));
+    }
+
+    private void cancelExpiry(String reservationId) {
+        TimingWheel.Timeout<String> timeout = timeouts.remove(reservationId);
+        if (timeout != null) {
+            expiries.cancel(timeout);
+        }
+    }
+
+    private void expire() {
+        for (String reservationId : expiries.advance(System.currentTimeMillis())) {
+            timeouts.remove(reservationId);
+            try {
+                expire(reservationId);
+            } catch (RuntimeException e) {
+                log.error("Failed to expire reservation {}, retrying: {}", reservationId, e.getMessage());
+                schedule(reservationId, Instant.now().plus(EXPIRY_RETRY_DELAY));
+            }
+        }
+    }
+
+    private void expire(String reservationId) {
+        reservationRepository.findById(reservationId).ifPresent(this::expire);
+    }
+
+    private void expire(Reservation reservation) {
+        if (reservation.getFinishedAt() != null) {
+            return;
+        }
+        switch (reservation.getStatus()) {
+            // HOLDING this late means the reserving call died or is stuck; if it goes on, it sees the release
+            case HOLDING, RESERVED -> {
+                // A commit or release on another replica wins the transition; then there is nothing to do
+                if (!reservationRepository.transition(reservation.getId(), reservation.getStatus(), ReservationStatus.RELEASED, null)) {
+                    return;
+                }
+                log.info("Reservation {} expired", reservation.getId());
+                finishRelease(reservation);
+            }
+            case RELEASED -> finishRelease(reservation);
+            // Finished by the sweep or a restart, not by expiry
+            case COMMITTED -> {
+            }
+        }
+    }
+
+    /**
+     * Releases reservations whose timer is gone, e.g. because the replica that armed it crashed, and
+     * finishes commits and releases interrupted the same way. Runs on the expiry thread.
+     */
+    private void sweep() {
+        try {
+            Instant expiredBefore = Instant.now().minus(properties.getSweepInterval());
+            List<Reservation> stale = reservationRepository.findTop500ByFinishedAtIsNullAndExpiresAtBefore(expiredBefore);
+            for (Reservation reservation : stale) {
+                cancelExpiry(reservation.getId());
+                if (reservation.getStatus() == ReservationStatus.COMMITTED) {
+                    finishCommit(reservation);
+                } else {
+                    expire(reservation);
+                }
+            }
+            if (!stale.isEmpty()) {
+                log.info("Swept {} stale reservations", stale.size());
+            }
+        } catch (RuntimeException e) {
+            log.error("Reservation sweep failed, retrying next interval: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Picks up reservations left by a previous run: open ones are re-armed (or released when already
+     * expired), interrupted commits and releases are finished.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        List<Reservation> open = reservationRepository.findByFinishedAtIsNull();
+        Instant now = Instant.now();
+        for (Reservation reservation : open) {
+            switch (reservation.getStatus()) {
+                case COMMITTED -> finishCommit(reservation);
+                case RELEASED -> finishRelease(reservation);
+                case HOLDING, RESERVED -> {
+                    if (reservation.getExpiresAt().isAfter(now)) {
+                        schedule(reservation.getId(), reservation.getExpiresAt());
+                    } else {
+                        expire(reservation);
+                    }
+                }
+            }
+        }
+        if (!open.isEmpty()) {
+            log.info("Recovered {} reservations, {} still open", open.size(), timeouts.size());
+        }
+        long tickMillis = properties.getTick().toMillis();
+        ticker.scheduleWithFixedDelay(this::expire, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        long sweepMillis = properties.getSweepInterval().toMillis();
+        ticker.scheduleWithFixedDelay(this::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        ticker.shutdownNow();
+    }
+}
@@ -0,0 +1,12 @@
+package com.demo.microservices.utils;
+
+public enum ReservationStatus {
+    // Recorded, holds are being taken; becomes RESERVED once every line is held
+    HOLDING,
+    // Stock is held for the reservation until it is committed, released or expires
+    RESERVED,
+    // Stock is permanently deducted; product entries are being cleaned up
+    COMMITTED,
+    // Stock is being returned to the products
+    RELEASED
+}
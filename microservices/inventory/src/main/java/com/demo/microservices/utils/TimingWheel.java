@@ -0,0 +1,160 @@
+package com.demo.microservices.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: four levels of 64 slots, each level 64 times coarser than the one below.
+ * Scheduling and cancelling are O(1); advancing costs one slot per tick plus the occasional cascade of
+ * a coarser slot into finer ones. With a 100 ms tick the wheel spans about 19 days; later deadlines
+ * are parked in the last slot and re-placed as time passes.
+ * Timeouts fire on the first {@link #advance} at or after their deadline, never before.
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final long tickMillis;
+    private final Timeout<T>[][] heads;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.heads = new Timeout[LEVELS][SLOTS];
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    public synchronized Timeout<T> schedule(T item, long deadlineMillis) {
+        // Round up, and never into the tick being processed
+        long deadlineTick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        Timeout<T> timeout = new Timeout<>(item, deadlineTick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * @return false when the timeout already fired or was cancelled
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.level < 0) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel to the given time and returns the items whose deadline has passed.
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(1);
+            Timeout<T> timeout = detachSlot(0, (int) (currentTick & SLOT_MASK));
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                timeout.next = null;
+                if (timeout.deadlineTick <= currentTick) {
+                    timeout.level = -1;
+                    size--;
+                    expired.add(timeout.item);
+                } else {
+                    place(timeout);
+                }
+                timeout = next;
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * When the finer levels just wrapped, pulls this level's current slot down into them
+     * (after first doing the same for the coarser levels).
+     */
+    private void cascade(int level) {
+        if (level >= LEVELS || (currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+            return;
+        }
+        cascade(level + 1);
+        Timeout<T> timeout = detachSlot(level, (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK));
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            timeout.next = null;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        long tick = delta > MAX_DELTA ? currentTick + MAX_DELTA : Math.max(timeout.deadlineTick, currentTick);
+        int level = 0;
+        while (level < LEVELS - 1 && tick - currentTick >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.prev = null;
+        timeout.next = heads[level][slot];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        heads[level][slot] = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            heads[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    private Timeout<T> detachSlot(int level, int slot) {
+        Timeout<T> head = heads[level][slot];
+        heads[level][slot] = null;
+        for (Timeout<T> timeout = head; timeout != null; timeout = timeout.next) {
+            timeout.prev = null;
+        }
+        return head;
+    }
+
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private int level;
+        private int slot;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T item() {
+            return item;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.demo.microservices.ledger;
+
+import com.demo.microservices.config.HotSkuProperties;
+import com.demo.microservices.repository.InventoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HotStockLedgerTest {
+
+    @TempDir
+    Path walDirectory;
+
+    private final InventoryRepository repository = mock(InventoryRepository.class);
+    private HotStockLedger ledger;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (ledger != null) {
+            ledger.destroy();
+        }
+    }
+
+    @Test
+    void givesBackHotStockWhenTheColdPathThrows() throws Exception {
+        ledger = ledgerWithHotSku("HOT", 10);
+
+        assertThatThrownBy(() -> ledger.deduct(basket("HOT", 3, "COLD", 1), cold -> {
+            throw new IllegalStateException("mongo down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(ledger.available("HOT")).contains(10L);
+    }
+
+    @Test
+    void givesBackHotStockWhenTheColdPathIsShort() throws Exception {
+        ledger = ledgerWithHotSku("HOT", 10);
+
+        Optional<String> failed = ledger.deduct(basket("HOT", 3, "COLD", 1), cold -> Optional.of("COLD"));
+
+        assertThat(failed).contains("COLD");
+        assertThat(ledger.available("HOT")).contains(10L);
+    }
+
+    @Test
+    void keepsHotStockTakenForACommittedBasket() throws Exception {
+        ledger = ledgerWithHotSku("HOT", 10);
+
+        Optional<String> failed = ledger.deduct(basket("HOT", 3, "COLD", 1), cold -> Optional.empty());
+
+        assertThat(failed).isEmpty();
+        assertThat(ledger.available("HOT")).contains(7L);
+    }
+
+    @Test
+    void replaysOnlyLogEntriesNewerThanWhatMongoApplied() throws Exception {
+        try (LedgerWal wal = new LedgerWal(walDirectory, false)) {
+            wal.recover();
+            wal.append(1, basket("A", 2, "B", 1));
+            wal.append(2, basket("A", 3, "B", 4));
+            wal.append(3, basket("A", 5));
+        }
+        // Mongo already holds A up to seq 2 and B up to seq 1
+        when(repository.findMaxLedgerSeq()).thenReturn(2L);
+        when(repository.findLedgerSeqs(anyCollection())).thenReturn(Map.of("A", 2L, "B", 1L));
+
+        ledger = new HotStockLedger(repository, properties());
+
+        verify(repository).applyLedgerDeductions(Map.of("A", 5L, "B", 4L), 3L);
+        verify(repository).clearAllHot();
+        try (var files = Files.list(walDirectory)) {
+            assertThat(files.toList()).isEmpty();
+        }
+    }
+
+    @Test
+    void skipsATornLastLogLine() throws Exception {
+        try (LedgerWal wal = new LedgerWal(walDirectory, false)) {
+            wal.recover();
+            wal.append(1, basket("A", 2));
+        }
+        Path file;
+        try (var files = Files.list(walDirectory)) {
+            file = files.findFirst().orElseThrow();
+        }
+        Files.writeString(file, "2\tA", java.nio.file.StandardOpenOption.APPEND);
+        when(repository.findLedgerSeqs(anyCollection())).thenReturn(Map.of());
+
+        ledger = new HotStockLedger(repository, properties());
+
+        verify(repository).applyLedgerDeductions(Map.of("A", 2L), 1L);
+    }
+
+    /**
+     * Starts a ledger and drives the SKU through promotion with one cold deduction per window.
+     */
+    private HotStockLedger ledgerWithHotSku(String sku, int quantity) throws IOException, InterruptedException {
+        when(repository.markHot(sku)).thenReturn(Optional.of(quantity));
+        HotStockLedger hotStockLedger = new HotStockLedger(repository, properties());
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (hotStockLedger.available(sku).isEmpty()) {
+            assertThat(System.nanoTime()).as("SKU was not promoted in time").isLessThan(deadline);
+            hotStockLedger.deduct(basket(sku, 0), cold -> Optional.empty());
+            Thread.sleep(5);
+        }
+        verify(repository).markHot(eq(sku));
+        return hotStockLedger;
+    }
+
+    private HotSkuProperties properties() {
+        HotSkuProperties properties = new HotSkuProperties();
+        properties.setEnabled(true);
+        properties.setWindow(Duration.ofMillis(20));
+        properties.setPromoteThreshold(1);
+        properties.setDemoteThreshold(0);
+        properties.setDemoteAfterWindows(Integer.MAX_VALUE);
+        properties.setStripes(4);
+        properties.setFlushInterval(Duration.ofSeconds(10));
+        properties.setWalDirectory(walDirectory.toString());
+        properties.setWalFsync(false);
+        return properties;
+    }
+
+    private static Map<String, Integer> basket(Object... skusAndQuantities) {
+        Map<String, Integer> basket = new LinkedHashMap<>();
+        for (int i = 0; i < skusAndQuantities.length; i += 2) {
+            basket.put((String) skusAndQuantities[i], (Integer) skusAndQuantities[i + 1]);
+        }
+        return basket;
+    }
+}
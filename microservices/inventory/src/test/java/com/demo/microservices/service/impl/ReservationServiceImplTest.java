@@ -0,0 +1,224 @@
+package com.demo.microservices.service.impl;
+
+import com.demo.microservices.cache.ProductCache;
+import com.demo.microservices.config.ProductCacheProperties;
+import com.demo.microservices.config.ReservationProperties;
+import com.demo.microservices.dto.DeductRequest;
+import com.demo.microservices.dto.ReservationResponse;
+import com.demo.microservices.exception.InsufficientStockException;
+import com.demo.microservices.exception.ReservationStateException;
+import com.demo.microservices.ledger.HotStockLedger;
+import com.demo.microservices.model.Reservation;
+import com.demo.microservices.repository.InventoryRepository;
+import com.demo.microservices.repository.ReservationRepository;
+import com.demo.microservices.utils.ReservationStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservationServiceImplTest {
+
+    private static final String ID = "r-1";
+    private static final Map<String, Integer> LINES = Map.of("SKU-1", 2);
+
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private final ReservationRepository reservationRepository = mock(ReservationRepository.class);
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<HotStockLedger> hotStockLedger = mock(ObjectProvider.class);
+    private final ReservationServiceImpl service = new ReservationServiceImpl(inventoryRepository, reservationRepository,
+            new ProductCache(new ProductCacheProperties()), new ReservationProperties(), hotStockLedger);
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void reserveRecordsTheReservationAndTakesTheHolds() {
+        when(inventoryRepository.reserveAll(ID, LINES)).thenReturn(Optional.empty());
+        when(reservationRepository.transition(ID, ReservationStatus.HOLDING, ReservationStatus.RESERVED, null)).thenReturn(true);
+
+        ReservationResponse response = service.reserve(basket(), Duration.ofMinutes(1), ID);
+
+        assertThat(response.getReservationId()).isEqualTo(ID);
+        verify(reservationRepository).insert(any(Reservation.class));
+        verify(inventoryRepository).reserveAll(ID, LINES);
+        verify(reservationRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void reserveReturnsHoldsTakenAfterTheReservationExpired() {
+        when(inventoryRepository.reserveAll(ID, LINES)).thenReturn(Optional.empty());
+        when(reservationRepository.transition(ID, ReservationStatus.HOLDING, ReservationStatus.RESERVED, null)).thenReturn(false);
+
+        assertThatThrownBy(() -> service.reserve(basket(), null, ID))
+                .isInstanceOf(ReservationStateException.class)
+                .satisfies(e -> assertThat(((ReservationStateException) e).getErrorResponse().getError())
+                        .isEqualTo(ReservationStateException.EXPIRED));
+
+        verify(inventoryRepository).releaseReservation(ID, LINES);
+    }
+
+    @Test
+    void reserveRetryWhileHoldsAreBeingTakenIsInProgress() {
+        when(reservationRepository.insert(any(Reservation.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(reservationRepository.findById(ID)).thenReturn(Optional.of(reservation(ReservationStatus.HOLDING, null)));
+
+        assertThatThrownBy(() -> service.reserve(basket(), null, ID))
+                .isInstanceOf(ReservationStateException.class)
+                .satisfies(e -> assertThat(((ReservationStateException) e).getErrorResponse().getError())
+                        .isEqualTo(ReservationStateException.IN_PROGRESS));
+
+        verify(inventoryRepository, never()).reserveAll(any(), anyMap());
+    }
+
+    @Test
+    void reserveDropsTheReservationWhenStockIsShort() {
+        when(inventoryRepository.reserveAll(ID, LINES)).thenReturn(Optional.of("SKU-1"));
+        when(inventoryRepository.existsBySku("SKU-1")).thenReturn(true);
+        when(reservationRepository.transition(ID, ReservationStatus.HOLDING, ReservationStatus.RELEASED, null)).thenReturn(true);
+
+        assertThatThrownBy(() -> service.reserve(basket(), null, ID)).isInstanceOf(InsufficientStockException.class);
+
+        verify(reservationRepository).deleteById(ID);
+    }
+
+    @Test
+    void reserveReleasesHoldsWhenTakingThemThrows() {
+        when(inventoryRepository.reserveAll(ID, LINES)).thenThrow(new IllegalStateException("mongo down"));
+        when(reservationRepository.transition(ID, ReservationStatus.HOLDING, ReservationStatus.RELEASED, null)).thenReturn(true);
+
+        assertThatThrownBy(() -> service.reserve(basket(), null, ID)).isInstanceOf(IllegalStateException.class);
+
+        verify(inventoryRepository).releaseReservation(ID, LINES);
+        verify(reservationRepository).deleteById(ID);
+    }
+
+    @Test
+    void reserveKeepsTheReservationForExpiryWhenTheReleaseFailsToo() {
+        when(inventoryRepository.reserveAll(ID, LINES)).thenThrow(new IllegalStateException("mongo down"));
+        when(reservationRepository.transition(ID, ReservationStatus.HOLDING, ReservationStatus.RELEASED, null))
+                .thenThrow(new IllegalStateException("still down"));
+
+        assertThatThrownBy(() -> service.reserve(basket(), null, ID))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("mongo down")
+                .satisfies(e -> assertThat(e.getSuppressed()).hasSize(1));
+
+        verify(reservationRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void commitMovesAReservedReservationToCommitted() {
+        when(reservationRepository.findById(ID)).thenReturn(Optional.of(reservation(ReservationStatus.RESERVED, null)));
+        when(reservationRepository.transition(eq(ID), eq(ReservationStatus.RESERVED), eq(ReservationStatus.COMMITTED), any()))
+                .thenReturn(true);
+
+        service.commit(ID);
+
+        verify(inventoryRepository).commitReservation(ID, LINES.keySet());
+        verify(reservationRepository).markFinished(ID);
+    }
+
+    @Test
+    void commitOfAFinishedCommitIsANoOp() {
+        when(reservationRepository.findById(ID)).thenReturn(Optional.of(reservation(ReservationStatus.COMMITTED, Instant.now())));
+
+        service.commit(ID);
+
+        verify(inventoryRepository, never()).commitReservation(any(), any());
+    }
+
+    @Test
+    void commitOfAReleasedReservationIsRejected() {
+        when(reservationRepository.findById(ID)).thenReturn(Optional.of(reservation(ReservationStatus.RELEASED, Instant.now())));
+
+        assertThatThrownBy(() -> service.commit(ID))
+                .isInstanceOf(ReservationStateException.class)
+                .satisfies(e -> assertThat(((ReservationStateException) e).getErrorResponse().getError())
+                        .isEqualTo(ReservationStateException.EXPIRED));
+
+        verify(inventoryRepository, never()).commitReservation(any(), any());
+    }
+
+    @Test
+    void commitAfterLosingTheRaceToExpiryIsRejected() {
+        when(reservationRepository.findById(ID))
+                .thenReturn(Optional.of(reservation(ReservationStatus.RESERVED, null)))
+                .thenReturn(Optional.of(reservation(ReservationStatus.RELEASED, null)));
+        when(reservationRepository.transition(eq(ID), eq(ReservationStatus.RESERVED), eq(ReservationStatus.COMMITTED), any()))
+                .thenReturn(false);
+
+        assertThatThrownBy(() -> service.commit(ID)).isInstanceOf(ReservationStateException.class);
+
+        verify(inventoryRepository, never()).commitReservation(any(), any());
+    }
+
+    @Test
+    void releaseReturnsTheHeldStock() {
+        when(reservationRepository.findById(ID)).thenReturn(Optional.of(reservation(ReservationStatus.RESERVED, null)));
+        when(reservationRepository.transition(ID, ReservationStatus.RESERVED, ReservationStatus.RELEASED, null)).thenReturn(true);
+
+        service.release(ID);
+
+        verify(inventoryRepository).releaseReservation(ID, LINES);
+        verify(reservationRepository).markFinished(ID);
+    }
+
+    @Test
+    void releaseOfACommittedReservationIsRejected() {
+        when(reservationRepository.findById(ID)).thenReturn(Optional.of(reservation(ReservationStatus.COMMITTED, Instant.now())));
+
+        assertThatThrownBy(() -> service.release(ID))
+                .isInstanceOf(ReservationStateException.class)
+                .satisfies(e -> assertThat(((ReservationStateException) e).getErrorResponse().getError())
+                        .isEqualTo(ReservationStateException.ALREADY_COMMITTED));
+    }
+
+    @Test
+    void releaseOfAFinishedReleaseIsANoOp() {
+        when(reservationRepository.findById(ID)).thenReturn(Optional.of(reservation(ReservationStatus.RELEASED, Instant.now())));
+
+        service.release(ID);
+
+        verify(inventoryRepository, never()).releaseReservation(any(), anyMap());
+    }
+
+    @Test
+    void releaseOfAnUnknownReservationIsANoOp() {
+        when(reservationRepository.findById(ID)).thenReturn(Optional.empty());
+
+        service.release(ID);
+
+        verify(reservationRepository, never()).transition(any(), any(), any(), isNull());
+    }
+
+    private static List<DeductRequest> basket() {
+        DeductRequest line = new DeductRequest();
+        line.setSku("SKU-1");
+        line.setDeductQuantity(2);
+        return List.of(line);
+    }
+
+    private static Reservation reservation(ReservationStatus status, Instant finishedAt) {
+        return new Reservation(ID, LINES, status, Instant.now().plusSeconds(60), finishedAt);
+    }
+}
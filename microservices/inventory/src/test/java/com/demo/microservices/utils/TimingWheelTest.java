@@ -0,0 +1,74 @@
+package com.demo.microservices.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final long TICK = 100;
+    private static final long START = 1_000_000;
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+
+    @Test
+    void firesOnFirstAdvanceAtOrAfterDeadline() {
+        wheel.schedule("a", START + 250);
+
+        assertThat(wheel.advance(START + 200)).isEmpty();
+        assertThat(wheel.advance(START + 299)).isEmpty();
+        assertThat(wheel.advance(START + 300)).containsExactly("a");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void neverFiresInTheTickBeingProcessed() {
+        wheel.schedule("past", START - 5_000);
+
+        assertThat(wheel.advance(START)).isEmpty();
+        assertThat(wheel.advance(START + TICK)).containsExactly("past");
+    }
+
+    @Test
+    void cancelledTimeoutsDoNotFire() {
+        TimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", START + 500);
+        wheel.schedule("kept", START + 500);
+
+        assertThat(wheel.cancel(cancelled)).isTrue();
+        assertThat(wheel.cancel(cancelled)).isFalse();
+        assertThat(wheel.advance(START + 1_000)).containsExactly("kept");
+    }
+
+    @Test
+    void cancelAfterFiringReportsFalse() {
+        TimingWheel.Timeout<String> timeout = wheel.schedule("a", START + TICK);
+
+        assertThat(wheel.advance(START + TICK)).containsExactly("a");
+        assertThat(wheel.cancel(timeout)).isFalse();
+    }
+
+    @Test
+    void cascadesDeadlinesFromCoarserLevels() {
+        // Beyond one level (64 ticks) and beyond two levels (4096 ticks)
+        long[] offsets = {63 * TICK, 64 * TICK, 65 * TICK, 4_095 * TICK, 4_097 * TICK, 300_000 * TICK};
+        for (long offset : offsets) {
+            wheel.schedule("t" + offset, START + offset);
+        }
+
+        List<String> fired = new ArrayList<>();
+        for (long now = START; now <= START + 300_000 * TICK; now += 37 * TICK) {
+            for (String item : wheel.advance(now)) {
+                long deadline = START + Long.parseLong(item.substring(1));
+                assertThat(now).as("fired late or early: " + item).isBetween(deadline, deadline + 37 * TICK);
+                fired.add(item);
+            }
+        }
+        fired.addAll(wheel.advance(START + 300_001 * TICK));
+
+        assertThat(fired).hasSize(offsets.length);
+        assertThat(wheel.size()).isZero();
+    }
+}
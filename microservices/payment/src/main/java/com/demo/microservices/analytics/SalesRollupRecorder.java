@@ -0,0 +1,189 @@
+package com.demo.microservices.analytics;
+
+import com.demo.microservices.configuration.SalesRollupProperties;
+import com.demo.microservices.dto.ItemRequest;
+import com.demo.microservices.model.SalesRollup;
+import com.demo.microservices.model.Transaction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the sales rollups up to date incrementally: each completed transaction adds its units and amount to
+ * in-memory counters per SKU and per currency for its hour and its day, and a background flusher adds the
+ * counters to the rollup collection with one bulk of $inc upserts. A checkout therefore costs a few map
+ * updates, and the rollups are never recomputed from the transactions. Counters not yet flushed are lost
+ * if the process dies, so the rollups may undercount by at most one flush interval per crash.
+ */
+@Component
+@ConditionalOnProperty(prefix = "payment.sales-rollup", name = "enabled", havingValue = "true")
+@Slf4j
+public class SalesRollupRecorder implements InitializingBean, DisposableBean {
+
+    private final MongoTemplate mongoTemplate;
+    private final SalesRollupProperties properties;
+    private final ConcurrentHashMap<RollupKey, Counts> pending = new ConcurrentHashMap<>();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public SalesRollupRecorder(MongoTemplate mongoTemplate, SalesRollupProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.flusher = new Thread(this::flushLoop, "sales-rollup-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        flusher.start();
+    }
+
+    /**
+     * Counts a completed transaction, i.e. one whose reservation is committed. Never fails: the checkout has
+     * already succeeded, so a transaction that cannot be counted is only logged.
+     */
+    public void record(Transaction transaction) {
+        if (transaction.getTimestamp() == null || transaction.getItemsPurchased() == null) {
+            return;
+        }
+        try {
+            count(transaction);
+        } catch (RuntimeException e) {
+            log.warn("Transaction {} was not counted in the sales rollups: {}", transaction.getTransactionId(), e.getMessage());
+        }
+    }
+
+    private void count(Transaction transaction) {
+        // A SKU may appear on several lines
+        Map<String, Long> unitsBySku = new LinkedHashMap<>();
+        long units = 0;
+        for (ItemRequest item : transaction.getItemsPurchased()) {
+            unitsBySku.merge(item.getSku(), (long) item.getQuantity(), Long::sum);
+            units += item.getQuantity();
+        }
+
+        boolean priced = transaction.getCurrency() != null && transaction.getTotalAmount() != null;
+        Counts revenue = priced ? new Counts(units, 1, toMinorUnits(transaction.getTotalAmount(), transaction.getCurrency())) : null;
+
+        for (Granularity granularity : Granularity.values()) {
+            Instant bucket = granularity.bucketOf(transaction.getTimestamp());
+            unitsBySku.forEach((sku, quantity) -> pending.merge(
+                    new RollupKey(granularity, SalesRollup.SKU, sku, bucket), new Counts(quantity, 1, 0), Counts::plus));
+            if (revenue != null) {
+                pending.merge(new RollupKey(granularity, SalesRollup.CURRENCY, transaction.getCurrency(), bucket),
+                        revenue, Counts::plus);
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                Thread.sleep(properties.getFlushInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            flush();
+        }
+        flush();
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // remove() hands over each key's counts atomically; checkouts meanwhile start new counts for the next flush
+        List<Map.Entry<RollupKey, Counts>> batch = new ArrayList<>(pending.size());
+        for (RollupKey key : pending.keySet()) {
+            Counts counts = pending.remove(key);
+            if (counts != null) {
+                batch.add(Map.entry(key, counts));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesRollup.class);
+        batch.forEach(entry -> bulk.upsert(Query.query(Criteria.where("_id").is(entry.getKey().id())),
+                increment(entry.getKey(), entry.getValue())));
+        try {
+            bulk.execute();
+            log.debug("Flushed {} sales rollup counters", batch.size());
+        } catch (BulkOperationException e) {
+            // Unordered: everything but the reported writes was applied, so only those are kept for the next flush
+            e.getErrors().forEach(error -> putBack(batch.get(error.getIndex())));
+            log.error("Failed to flush {} of {} sales rollup counters, retrying: {}", e.getErrors().size(), batch.size(), e.getMessage());
+        } catch (RuntimeException e) {
+            batch.forEach(this::putBack);
+            log.error("Failed to flush {} sales rollup counters, retrying: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private void putBack(Map.Entry<RollupKey, Counts> entry) {
+        pending.merge(entry.getKey(), entry.getValue(), Counts::plus);
+    }
+
+    private Update increment(RollupKey key, Counts counts) {
+        Update update = new Update()
+                .setOnInsert("granularity", key.granularity().name())
+                .setOnInsert("dimension", key.dimension())
+                .setOnInsert("key", key.key())
+                .setOnInsert("bucket", key.bucket())
+                .inc("units", counts.units())
+                .inc("transactions", counts.transactions());
+        if (SalesRollup.CURRENCY.equals(key.dimension())) {
+            update.inc("amountMinor", counts.amountMinor());
+        }
+        if (key.granularity() == Granularity.HOUR) {
+            update.setOnInsert("expireAt", key.bucket().plus(key.granularity().width()).plus(properties.getHourlyRetention()));
+        }
+        return update;
+    }
+
+    private static long toMinorUnits(BigDecimal amount, String currency) {
+        int fractionDigits = Currency.getInstance(currency).getDefaultFractionDigits();
+        return amount.movePointRight(Math.max(fractionDigits, 0)).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        // Let the flusher wake up and write what is left
+        flusher.join(properties.getFlushInterval().toMillis() + TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private record RollupKey(Granularity granularity, String dimension, String key, Instant bucket) {
+
+        String id() {
+            return granularity + "|" + dimension + "|" + key + "|" + bucket;
+        }
+    }
+
+    private record Counts(long units, long transactions, long amountMinor) {
+
+        Counts plus(Counts other) {
+            return new Counts(units + other.units, transactions + other.transactions, amountMinor + other.amountMinor);
+        }
+    }
+}
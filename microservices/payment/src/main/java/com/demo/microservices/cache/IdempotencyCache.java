@@ -0,0 +1,58 @@
+package com.demo.microservices.cache;
+
+import com.demo.microservices.configuration.IdempotencyProperties;
+import com.demo.microservices.exception.IdempotencyKeyException;
+import com.demo.microservices.exception.InventoryDeductionException;
+import com.demo.microservices.model.Transaction;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-evicting store of payment executions keyed by Idempotency-Key.
+ * Each key maps to a cached Mono: concurrent duplicates subscribe to the same in-flight execution,
+ * and later retries replay its outcome. A duplicate with a different request hash is rejected instead.
+ * Transient failures are evicted so the client can retry; inventory rejections are final and replayed like successes.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final Cache<String, Execution> executions;
+
+    public IdempotencyCache(IdempotencyProperties properties) {
+        this.executions = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+    }
+
+    public Mono<Transaction> execute(String idempotencyKey, String requestHash, Supplier<Mono<Transaction>> action) {
+        return Mono.defer(() -> {
+            Execution execution = executions.get(idempotencyKey, key -> newExecution(key, requestHash, action));
+            if (!execution.requestHash().equals(requestHash)) {
+                return Mono.error(new IdempotencyKeyException(IdempotencyKeyException.REQUEST_MISMATCH));
+            }
+            return execution.result();
+        });
+    }
+
+    private Execution newExecution(String key, String requestHash, Supplier<Mono<Transaction>> action) {
+        AtomicReference<Execution> self = new AtomicReference<>();
+        Mono<Transaction> result = Mono.defer(action)
+                .doOnError(e -> {
+                    if (!(e instanceof InventoryDeductionException)) {
+                        executions.asMap().remove(key, self.get());
+                    }
+                })
+                .cache();
+        self.set(new Execution(requestHash, result));
+        return self.get();
+    }
+
+    private record Execution(String requestHash, Mono<Transaction> result) {
+    }
+}
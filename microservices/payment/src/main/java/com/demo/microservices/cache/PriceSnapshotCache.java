@@ -0,0 +1,62 @@
+package com.demo.microservices.cache;
+
+import com.demo.microservices.client.InventoryClient;
+import com.demo.microservices.configuration.PriceCacheProperties;
+import com.demo.microservices.dto.PriceSnapshot;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Price snapshots per SKU, loaded from the inventory service. All SKUs of a basket missing from the
+ * cache are fetched in one batch call; stale snapshots are refreshed in the background while the
+ * previous price keeps being served, and dropped entirely once they reach the expiry age.
+ */
+@Component
+public class PriceSnapshotCache {
+
+    private final AsyncLoadingCache<String, PriceSnapshot> snapshots;
+
+    public PriceSnapshotCache(InventoryClient client, PriceCacheProperties properties) {
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .refreshAfterWrite(properties.getRefreshAfter())
+                .expireAfterWrite(properties.getExpireAfter())
+                .buildAsync(new AsyncCacheLoader<>() {
+                    @Override
+                    public CompletableFuture<PriceSnapshot> asyncLoad(String sku, Executor executor) {
+                        return client.getPrices(List.of(sku))
+                                // An unknown SKU completes with null, which Caffeine treats as absent
+                                .flatMap(prices -> Mono.justOrEmpty(prices.isEmpty() ? null : prices.get(0)))
+                                .toFuture();
+                    }
+
+                    @Override
+                    public CompletableFuture<Map<String, PriceSnapshot>> asyncLoadAll(Set<? extends String> skus,
+                                                                                       Executor executor) {
+                        return client.getPrices(List.copyOf(skus))
+                                .map(prices -> prices.stream()
+                                        .collect(Collectors.toMap(PriceSnapshot::getSku, Function.identity())))
+                                .toFuture();
+                    }
+                });
+    }
+
+    /**
+     * Snapshots for the SKUs; SKUs unknown to inventory are absent from the map.
+     */
+    public Mono<Map<String, PriceSnapshot>> getAll(Collection<String> skus) {
+        return Mono.fromFuture(() -> snapshots.getAll(skus));
+    }
+}
@@ -1,11 +1,36 @@
 package com.demo.microservices.client;
 
 import com.demo.microservices.dto.DeductRequest;
+import com.demo.microservices.dto.PriceSnapshot;
+import com.demo.microservices.dto.StockReservation;
 import com.demo.microservices.exception.InventoryDeductionException;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
 public interface InventoryClient {
 
-    void deductStock(List<DeductRequest> requests) throws InventoryDeductionException;
+    /**
+     * Holds stock for the given lines until committed, released or expired. Errors with
+     * {@link InventoryDeductionException} when inventory rejects the reservation.
+     * The request token is sent as the reservation id, which makes the call safe to retry: inventory
+     * answers a repeated token with the reservation it already holds.
+     */
+    Mono<StockReservation> reserveStock(List<DeductRequest> requests, String requestToken);
+
+    /**
+     * Makes a reservation's deduction permanent. Safe to retry; errors with
+     * {@link InventoryDeductionException} when the reservation expired or was released.
+     */
+    Mono<Void> commitReservation(String reservationId);
+
+    /**
+     * Returns a reservation's stock. Safe to retry.
+     */
+    Mono<Void> releaseReservation(String reservationId);
+
+    /**
+     * Fetches current prices for the SKUs in one call. SKUs unknown to inventory are left out.
+     */
+    Mono<List<PriceSnapshot>> getPrices(List<String> skus);
 }
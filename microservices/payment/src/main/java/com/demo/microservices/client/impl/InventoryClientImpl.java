@@ -3,13 +3,17 @@ package com.demo.microservices.client.impl;
 import com.demo.microservices.client.InventoryClient;
 import com.demo.microservices.dto.DeductErrorResponse;
 import com.demo.microservices.dto.DeductRequest;
+import com.demo.microservices.dto.PriceSnapshot;
+import com.demo.microservices.dto.StockReservation;
 import com.demo.microservices.exception.InventoryDeductionException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
@@ -20,46 +24,90 @@ public class InventoryClientImpl implements InventoryClient {
 
     private final WebClient inventoryWebClient;
 
-    private static final String DEDUCT_STOCK_PATH = "/stock/deduct";
+    private static final String RESERVATIONS_PATH = "/stock/reservations";
 
+    private static final String COMMIT_PATH = "/stock/reservations/{reservationId}/commit";
+
+    private static final String RELEASE_PATH = "/stock/reservations/{reservationId}/release";
+
+    private static final String PRICES_PATH = "/products/prices";
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final ParameterizedTypeReference<List<PriceSnapshot>> PRICE_LIST = new ParameterizedTypeReference<>() {
+    };
+
+
+    @Override
+    public Mono<StockReservation> reserveStock(List<DeductRequest> requests, String requestToken) {
+        log.info("Attempting to call Inventory Service: POST {}", RESERVATIONS_PATH);
+        return exchange(inventoryWebClient.post()
+                .uri(RESERVATIONS_PATH)
+                .header(IDEMPOTENCY_KEY_HEADER, requestToken)
+                .bodyValue(requests) // Send the List<DeductRequest> as the JSON body
+                .retrieve(), StockReservation.class, "stock reservation")
+                .doOnNext(reservation -> log.info("Inventory reservation {} held until {}.",
+                        reservation.getReservationId(), reservation.getExpiresAt()));
+    }
 
     @Override
-    public void deductStock(List<DeductRequest> requests) throws InventoryDeductionException {
-
-        log.info("Attempting to call Inventory Service: POST {}", DEDUCT_STOCK_PATH);
-        try {
-            inventoryWebClient.post()
-                    .uri(DEDUCT_STOCK_PATH)
-                    .bodyValue(requests) // Send the List<DeductRequest> as the JSON body
-                    .retrieve()
-
-                    .onStatus(status -> status == HttpStatus.CONFLICT, response ->
-                            response.bodyToMono(DeductErrorResponse.class)
-                                    .flatMap(errorBody -> {
-                                        log.warn("Inventory Service returned 409 Conflict ({}). SKU: {}",
-                                                errorBody.getError(), errorBody.getSku());
-
-                                        throw new InventoryDeductionException(
-                                                errorBody.getError(),
-                                                errorBody.getSku()
-                                        );
-                                    })
-                    ).onStatus(status -> status.isError(), response -> {
-                        log.error("Inventory Service returned non-409 error status: {}", response.statusCode());
-                        return response.createException();
-                    })
-                    .bodyToMono(Void.class)
-                    .block();
-            log.info("Inventory deduction confirmed by Inventory Service.");
-        } catch (InventoryDeductionException e) {
-            throw e;
-        } catch (WebClientResponseException e) {
-            log.error("Generic WebClient error during inventory deduction: {}", e.getMessage());
-            throw new RuntimeException("Failed to communicate with Inventory Service.", e);
-        } catch (Exception e) {
-            log.error("Connection error during inventory deduction: {}", e.getMessage());
-            throw new RuntimeException("Connection error to Inventory Service.", e);
-        }
+    public Mono<Void> commitReservation(String reservationId) {
+        return exchange(inventoryWebClient.post()
+                .uri(COMMIT_PATH, reservationId)
+                .retrieve(), Void.class, "reservation commit")
+                .doOnSuccess(ignored -> log.info("Inventory reservation {} committed.", reservationId));
+    }
+
+    @Override
+    public Mono<Void> releaseReservation(String reservationId) {
+        return exchange(inventoryWebClient.post()
+                .uri(RELEASE_PATH, reservationId)
+                .retrieve(), Void.class, "reservation release")
+                .doOnSuccess(ignored -> log.info("Inventory reservation {} released.", reservationId));
+    }
 
+    /**
+     * Maps 409 Conflict to {@link InventoryDeductionException} and any other failure to a RuntimeException.
+     */
+    private <T> Mono<T> exchange(WebClient.ResponseSpec response, Class<T> bodyType, String operation) {
+        return response
+                .onStatus(status -> status == HttpStatus.CONFLICT, clientResponse ->
+                        clientResponse.bodyToMono(DeductErrorResponse.class)
+                                .flatMap(errorBody -> {
+                                    log.warn("Inventory Service returned 409 Conflict on {} ({}). SKU: {}",
+                                            operation, errorBody.getError(), errorBody.getSku());
+
+                                    return Mono.error(new InventoryDeductionException(
+                                            errorBody.getError(),
+                                            errorBody.getSku()
+                                    ));
+                                })
+                ).onStatus(status -> status.isError(), clientResponse -> {
+                    log.error("Inventory Service returned non-409 error status on {}: {}", operation, clientResponse.statusCode());
+                    return clientResponse.createException();
+                })
+                .bodyToMono(bodyType)
+                .onErrorMap(e -> !(e instanceof InventoryDeductionException), e -> {
+                    if (e instanceof WebClientResponseException) {
+                        log.error("Generic WebClient error during {}: {}", operation, e.getMessage());
+                        return new RuntimeException("Failed to communicate with Inventory Service.", e);
+                    }
+                    log.error("Connection error during {}: {}", operation, e.getMessage());
+                    return new RuntimeException("Connection error to Inventory Service.", e);
+                });
+    }
+
+    @Override
+    public Mono<List<PriceSnapshot>> getPrices(List<String> skus) {
+        log.debug("Fetching prices for {} SKUs: POST {}", skus.size(), PRICES_PATH);
+        return inventoryWebClient.post()
+                .uri(PRICES_PATH)
+                .bodyValue(skus)
+                .retrieve()
+                .bodyToMono(PRICE_LIST)
+                .onErrorMap(e -> {
+                    log.error("Failed to fetch prices from Inventory Service: {}", e.getMessage());
+                    return new RuntimeException("Failed to fetch prices from Inventory Service.", e);
+                });
     }
 }
@@ -0,0 +1,187 @@
+package com.demo.microservices.client.impl;
+
+import com.demo.microservices.client.InventoryClient;
+import com.demo.microservices.configuration.ResilienceProperties;
+import com.demo.microservices.dto.DeductRequest;
+import com.demo.microservices.dto.InventoryClientStats;
+import com.demo.microservices.dto.PriceSnapshot;
+import com.demo.microservices.dto.StockReservation;
+import com.demo.microservices.exception.InventoryDeductionException;
+import com.demo.microservices.exception.InventoryUnavailableException;
+import com.demo.microservices.resilience.Bulkhead;
+import com.demo.microservices.resilience.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.retry.Retry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Guards every call to inventory with a bulkhead and a circuit breaker, so a slow or failing inventory
+ * sheds load quickly instead of tying up connections and checkout requests.
+ * Transient failures are retried with jittered exponential backoff: commit and release are idempotent,
+ * and reserve is made so by its request token. Price reads may additionally be hedged.
+ * Rejected calls fail with {@link InventoryUnavailableException} and are never retried.
+ */
+@Component
+@Primary
+@Slf4j
+public class ResilientInventoryClient implements InventoryClient {
+
+    private final InventoryClientImpl delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Retry retry;
+    private final ResilienceProperties properties;
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedgedCalls = new LongAdder();
+
+    public ResilientInventoryClient(InventoryClientImpl delegate, ResilienceProperties properties) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.circuitBreaker = new CircuitBreaker("inventory",
+                properties.getSlidingWindowSize(),
+                properties.getMinimumCalls(),
+                properties.getFailureRateThreshold(),
+                properties.getSlowCallThreshold().toNanos(),
+                properties.getSlowCallRateThreshold(),
+                properties.getWaitInOpenState().toNanos(),
+                properties.getPermittedCallsInHalfOpenState());
+        this.bulkhead = new Bulkhead(properties.getMaxConcurrentCalls());
+        this.retry = Retry.backoff(properties.getMaxRetries(), properties.getRetryBackoff())
+                .maxBackoff(properties.getMaxRetryBackoff())
+                .jitter(properties.getRetryJitter())
+                .filter(ResilientInventoryClient::isRetryable)
+                .doBeforeRetry(signal -> {
+                    retries.increment();
+                    log.debug("Retrying inventory call (attempt {}): {}", signal.totalRetries() + 1, signal.failure().getMessage());
+                })
+                // Surface the last real failure rather than a RetryExhaustedException
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    @Override
+    public Mono<StockReservation> reserveStock(List<DeductRequest> requests, String requestToken) {
+        return guarded(() -> delegate.reserveStock(requests, requestToken)).retryWhen(retry);
+    }
+
+    @Override
+    public Mono<Void> commitReservation(String reservationId) {
+        return guarded(() -> delegate.commitReservation(reservationId)).retryWhen(retry);
+    }
+
+    @Override
+    public Mono<Void> releaseReservation(String reservationId) {
+        return guarded(() -> delegate.releaseReservation(reservationId)).retryWhen(retry);
+    }
+
+    @Override
+    public Mono<List<PriceSnapshot>> getPrices(List<String> skus) {
+        return hedged(() -> guarded(() -> delegate.getPrices(skus))).retryWhen(retry);
+    }
+
+    public InventoryClientStats stats() {
+        CircuitBreaker.Snapshot breaker = circuitBreaker.snapshot();
+        return new InventoryClientStats(
+                breaker.state().name(),
+                breaker.failureRate(),
+                breaker.slowCallRate(),
+                breaker.bufferedCalls(),
+                breaker.notPermittedCalls(),
+                breaker.transitionsTo().entrySet().stream()
+                        .collect(Collectors.toMap(entry -> entry.getKey().name(), Map.Entry::getValue)),
+                bulkhead.maxConcurrentCalls(),
+                bulkhead.availableConcurrentCalls(),
+                bulkhead.rejectedCalls(),
+                retries.sum(),
+                hedgedCalls.sum());
+    }
+
+    /**
+     * One attempt: takes a bulkhead permit and a circuit breaker permission when subscribed, and gives
+     * both back when the call completes, fails or is cancelled.
+     */
+    private <T> Mono<T> guarded(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            if (!bulkhead.tryAcquire()) {
+                return Mono.error(new InventoryUnavailableException(InventoryUnavailableException.BULKHEAD_FULL));
+            }
+            if (!circuitBreaker.tryAcquirePermission()) {
+                bulkhead.release();
+                return Mono.error(new InventoryUnavailableException(InventoryUnavailableException.CIRCUIT_OPEN));
+            }
+            long start = System.nanoTime();
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            return call.get()
+                    .doOnError(error::set)
+                    .doFinally(signal -> {
+                        bulkhead.release();
+                        if (signal == SignalType.CANCEL) {
+                            // e.g. the losing side of a hedge; its outcome is unknown
+                            circuitBreaker.releasePermission();
+                        } else {
+                            circuitBreaker.onResult(System.nanoTime() - start, isFailure(error.get()));
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Sends a second copy of the read if the first has not answered within the hedge delay and takes
+     * whichever answers first; the other is cancelled.
+     */
+    private <T> Mono<T> hedged(Supplier<Mono<T>> call) {
+        if (properties.getHedgeDelay().isZero()) {
+            return call.get();
+        }
+        Mono<T> hedge = Mono.delay(properties.getHedgeDelay())
+                .doOnNext(tick -> hedgedCalls.increment())
+                .then(Mono.defer(call));
+        return Mono.firstWithValue(call.get(), hedge)
+                .onErrorMap(NoSuchElementException.class, ResilientInventoryClient::firstFailure);
+    }
+
+    /**
+     * Both sides of a hedge failed; report the first failure instead of Reactor's aggregate.
+     */
+    private static Throwable firstFailure(NoSuchElementException e) {
+        if (e.getCause() != null) {
+            return Exceptions.unwrapMultiple(e.getCause()).get(0);
+        }
+        return e.getSuppressed().length > 0 ? e.getSuppressed()[0] : e;
+    }
+
+    /**
+     * Business rejections and the caller's own mistakes say nothing about inventory's health.
+     */
+    private static boolean isFailure(Throwable e) {
+        return e != null && !(e instanceof InventoryDeductionException) && !isClientError(e);
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        if (e instanceof InventoryDeductionException deduction) {
+            return InventoryDeductionException.RESERVATION_IN_PROGRESS.equals(deduction.getReason());
+        }
+        return !(e instanceof InventoryUnavailableException) && !isClientError(e);
+    }
+
+    private static boolean isClientError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof WebClientResponseException response) {
+                return response.getStatusCode().is4xxClientError();
+            }
+        }
+        return false;
+    }
+}
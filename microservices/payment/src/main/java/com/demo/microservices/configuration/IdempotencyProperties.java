@@ -0,0 +1,23 @@
+package com.demo.microservices.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.idempotency")
+@Data
+public class IdempotencyProperties {
+
+    /**
+     * Maximum number of Idempotency-Key results kept in memory.
+     */
+    private long maximumSize = 100_000;
+
+    /**
+     * How long a completed result is replayed from memory. Older keys are still found through the stored transaction.
+     */
+    private Duration ttl = Duration.ofHours(24);
+}
@@ -0,0 +1,70 @@
+package com.demo.microservices.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.inventory-client")
+@Data
+public class InventoryClientProperties {
+
+    /**
+     * Base URL of the inventory API.
+     */
+    private String baseUrl = "http://localhost:8083/api/v1/inventory";
+
+    /**
+     * Maximum open connections to inventory (for HTTP/2, maximum connections each multiplexing many streams).
+     */
+    private int maxConnections = 200;
+
+    /**
+     * Requests allowed to wait for a free connection; further requests fail fast.
+     */
+    private int pendingAcquireMaxCount = 1_000;
+
+    /**
+     * Longest wait for a free connection.
+     */
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Idle connections are closed after this, before the server's keep-alive timeout closes them under us.
+     */
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+
+    /**
+     * Connections are recycled after this, so new inventory instances get traffic.
+     */
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+
+    /**
+     * How often idle and expired connections are evicted in the background; zero evicts only on acquire.
+     */
+    private Duration evictInBackground = Duration.ofSeconds(30);
+
+    private Duration connectTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Deadline for the response of each request, counted from when the request was sent.
+     */
+    private Duration responseTimeout = Duration.ofSeconds(3);
+
+    /**
+     * Whether TCP keep-alive probes are enabled on inventory connections.
+     */
+    private boolean keepAlive = true;
+
+    /**
+     * Whether to talk cleartext HTTP/2 (h2c) to inventory, falling back to HTTP/1.1 when it is not offered.
+     */
+    private boolean http2 = false;
+
+    /**
+     * Whether request and response bodies are CBOR instead of JSON. Inventory answers JSON unless asked.
+     */
+    private boolean cbor = false;
+}
@@ -0,0 +1,28 @@
+package com.demo.microservices.configuration;
+
+import com.demo.microservices.outbox.InMemoryOutboxSink;
+import com.demo.microservices.outbox.NdjsonFileOutboxSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnProperty(prefix = "payment.outbox", name = "enabled", havingValue = "true")
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "payment.outbox", name = "sink", havingValue = "file", matchIfMissing = true)
+    public NdjsonFileOutboxSink fileOutboxSink(OutboxProperties properties, ObjectMapper objectMapper) throws IOException {
+        return new NdjsonFileOutboxSink(Path.of(properties.getFile()), properties.isFsync(), objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "payment.outbox", name = "sink", havingValue = "memory")
+    public InMemoryOutboxSink memoryOutboxSink(OutboxProperties properties) {
+        return new InMemoryOutboxSink(properties.getMemoryCapacity());
+    }
+}
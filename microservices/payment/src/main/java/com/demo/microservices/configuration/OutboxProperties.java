@@ -0,0 +1,59 @@
+package com.demo.microservices.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.outbox")
+@Data
+public class OutboxProperties {
+
+    /**
+     * When enabled, every transaction is marked as unpublished as it completes and a background relay
+     * publishes a payment event for it to the configured sink.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Where events go: "file" (an NDJSON log) or "memory" (an in-process queue standing in for a broker).
+     */
+    private String sink = "file";
+
+    /**
+     * Maximum events per publish (and per marker update in Mongo).
+     */
+    private int batchSize = 500;
+
+    /**
+     * How often the relay looks for unpublished transactions when the previous batch was not full.
+     */
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    /**
+     * Wait before retrying a batch the sink or Mongo rejected.
+     */
+    private Duration retryBackoff = Duration.ofSeconds(1);
+
+    /**
+     * Only the replica holding the lease relays; another takes over once it lapses.
+     */
+    private Duration leaseDuration = Duration.ofSeconds(10);
+
+    /**
+     * File the "file" sink appends to, one event per line.
+     */
+    private String file = "outbox/payment-events.ndjson";
+
+    /**
+     * fsync the event log after every batch, before the batch is marked as published.
+     */
+    private boolean fsync = true;
+
+    /**
+     * Events the "memory" sink holds for its consumers; when full, publishing waits and then retries.
+     */
+    private int memoryCapacity = 10_000;
+}
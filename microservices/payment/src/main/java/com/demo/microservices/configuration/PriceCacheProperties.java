@@ -0,0 +1,28 @@
+package com.demo.microservices.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.prices")
+@Data
+public class PriceCacheProperties {
+
+    /**
+     * Maximum number of SKU price snapshots kept in memory.
+     */
+    private long maximumSize = 100_000;
+
+    /**
+     * Age after which a snapshot is reloaded in the background on its next read; the old price is served meanwhile.
+     */
+    private Duration refreshAfter = Duration.ofSeconds(30);
+
+    /**
+     * Age after which a snapshot is dropped, so a checkout never prices against anything older than this.
+     */
+    private Duration expireAfter = Duration.ofMinutes(5);
+}
@@ -0,0 +1,72 @@
+package com.demo.microservices.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.inventory-client.resilience")
+@Data
+public class ResilienceProperties {
+
+    /**
+     * Number of most recent inventory calls the circuit breaker judges.
+     */
+    private int slidingWindowSize = 50;
+
+    /**
+     * Calls needed in the window before the breaker may open.
+     */
+    private int minimumCalls = 20;
+
+    /**
+     * Percentage of failed calls in the window that opens the breaker.
+     */
+    private int failureRateThreshold = 50;
+
+    /**
+     * Calls slower than this count as slow.
+     */
+    private Duration slowCallThreshold = Duration.ofSeconds(1);
+
+    /**
+     * Percentage of slow calls in the window that opens the breaker.
+     */
+    private int slowCallRateThreshold = 80;
+
+    /**
+     * How long an open breaker rejects calls before letting trial calls through.
+     */
+    private Duration waitInOpenState = Duration.ofSeconds(10);
+
+    /**
+     * Trial calls in the half-open state that decide between closing and re-opening.
+     */
+    private int permittedCallsInHalfOpenState = 5;
+
+    /**
+     * Maximum concurrent inventory calls; further calls are rejected immediately.
+     */
+    private int maxConcurrentCalls = 100;
+
+    /**
+     * Retries after the first attempt, for idempotent calls and transient failures only.
+     */
+    private int maxRetries = 2;
+
+    private Duration retryBackoff = Duration.ofMillis(50);
+
+    private Duration maxRetryBackoff = Duration.ofMillis(500);
+
+    /**
+     * Fraction of each backoff that is randomized, so retries from many callers do not line up.
+     */
+    private double retryJitter = 0.5;
+
+    /**
+     * Delay after which a read is sent a second time if the first has not answered; zero disables hedging.
+     */
+    private Duration hedgeDelay = Duration.ZERO;
+}
@@ -0,0 +1,39 @@
+package com.demo.microservices.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.sales-rollup")
+@Data
+public class SalesRollupProperties {
+
+    /**
+     * When enabled, every completed transaction is counted into hourly and daily sales rollups; otherwise the
+     * analytics endpoints only see what was counted before.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How often counters gathered in memory are added to the rollup collection; also how stale queries may be.
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * Hourly rollups are deleted by a TTL index this long after their hour; daily rollups are kept.
+     */
+    private Duration hourlyRetention = Duration.ofDays(30);
+
+    /**
+     * Largest top-N a query may ask for.
+     */
+    private int maxTopSkus = 100;
+
+    /**
+     * Largest number of buckets a time-series query may span.
+     */
+    private int maxBuckets = 1_000;
+}
@@ -0,0 +1,29 @@
+package com.demo.microservices.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.settlement")
+@Data
+public class SettlementProperties {
+
+    /**
+     * How often transactions still waiting on their reservation are looked for.
+     */
+    private Duration sweepInterval = Duration.ofSeconds(30);
+
+    /**
+     * Age after which a transaction still RESERVED is taken to be abandoned by its checkout. Must exceed the
+     * longest checkout (inventory timeouts and retries included) and stay below the inventory reservation TTL.
+     */
+    private Duration staleAfter = Duration.ofMinutes(1);
+
+    /**
+     * Maximum transactions settled per sweep.
+     */
+    private int sweepBatchSize = 100;
+}
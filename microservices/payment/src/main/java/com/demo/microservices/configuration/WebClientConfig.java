@@ -1,18 +1,65 @@
 package com.demo.microservices.configuration;
 
+import com.demo.microservices.metrics.ConnectionPoolRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.netty.channel.ChannelOption;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class WebClientConfig {
 
-    private static final String INVENTORY_SERVICE_BASE_URL = "http://localhost:8083/api/v1/inventory";
+    private static final String INVENTORY_POOL = "inventory";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider inventoryConnectionProvider(InventoryClientProperties properties,
+                                                          ConnectionPoolRegistry poolRegistry) {
+        return ConnectionProvider.builder(INVENTORY_POOL)
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .maxLifeTime(properties.getMaxLifeTime())
+                .evictInBackground(properties.getEvictInBackground())
+                .metrics(true, () -> poolRegistry)
+                .build();
+    }
 
     @Bean
-    public WebClient inventoryWebClient(WebClient.Builder builder) {
+    public WebClient inventoryWebClient(WebClient.Builder builder, ConnectionProvider inventoryConnectionProvider,
+                                        InventoryClientProperties properties, Jackson2ObjectMapperBuilder mapperBuilder) {
+        HttpClient httpClient = HttpClient.create(inventoryConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(properties.getConnectTimeout().toMillis()))
+                .option(ChannelOption.SO_KEEPALIVE, properties.isKeepAlive())
+                .responseTimeout(properties.getResponseTimeout());
+        if (properties.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        if (properties.isCbor()) {
+            // Same Jackson settings as the JSON codecs, CBOR encoding
+            ObjectMapper cborMapper = mapperBuilder.factory(new CBORFactory()).build();
+            builder = builder
+                    .codecs(codecs -> {
+                        codecs.customCodecs().register(new Jackson2CborEncoder(cborMapper));
+                        codecs.customCodecs().register(new Jackson2CborDecoder(cborMapper));
+                    })
+                    .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE)
+                    .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_CBOR_VALUE);
+        }
         return builder
-                .baseUrl(INVENTORY_SERVICE_BASE_URL)
+                .baseUrl(properties.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .build();
     }
 }
@@ -0,0 +1,45 @@
+package com.demo.microservices.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment.write-behind")
+@Data
+public class WriteBehindProperties {
+
+    /**
+     * When enabled, transactions are journaled locally and written to Mongo in batches by a background flusher.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Transactions waiting to be flushed. When full, checkouts fall back to a direct (synchronous) save.
+     */
+    private int queueCapacity = 10_000;
+
+    /**
+     * Maximum transactions per insertMany.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Longest time a transaction waits for its batch to fill up.
+     */
+    private Duration flushInterval = Duration.ofMillis(50);
+
+    private String journalDirectory = "journal";
+
+    /**
+     * Journal segment size after which a new segment is started; flushed segments are deleted.
+     */
+    private long journalSegmentBytes = 64L * 1024 * 1024;
+
+    /**
+     * fsync every journal append. Safer across OS crashes, slower per checkout.
+     */
+    private boolean fsync = true;
+}
@@ -0,0 +1,32 @@
+package com.demo.microservices.controller;
+
+import com.demo.microservices.client.impl.ResilientInventoryClient;
+import com.demo.microservices.dto.ConnectionPoolStats;
+import com.demo.microservices.dto.InventoryClientStats;
+import com.demo.microservices.metrics.ConnectionPoolRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/payment/metrics")
+@RequiredArgsConstructor
+public class ClientMetricsController {
+
+    private final ConnectionPoolRegistry poolRegistry;
+
+    private final ResilientInventoryClient inventoryClient;
+
+    @GetMapping("/inventory-pool")
+    public List<ConnectionPoolStats> getInventoryPoolStats() {
+        return poolRegistry.snapshot();
+    }
+
+    @GetMapping("/inventory-client")
+    public InventoryClientStats getInventoryClientStats() {
+        return inventoryClient.stats();
+    }
+}
@@ -0,0 +1,26 @@
+package com.demo.microservices.controller;
+
+import com.demo.microservices.dto.OutboxStats;
+import com.demo.microservices.outbox.OutboxRelay;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@RestController
+@RequestMapping("/api/v1/payment/metrics")
+@ConditionalOnProperty(prefix = "payment.outbox", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class OutboxMetricsController {
+
+    private final OutboxRelay outboxRelay;
+
+    @GetMapping("/outbox")
+    public Mono<OutboxStats> getOutboxStats() {
+        // Counts the backlog with blocking Mongo calls, so keep it off the event loop
+        return Mono.fromCallable(outboxRelay::stats).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -2,18 +2,21 @@ package com.demo.microservices.controller;
 
 import com.demo.microservices.dto.PurchaseRequest;
 import com.demo.microservices.dto.TransactionError;
+import com.demo.microservices.exception.IdempotencyKeyException;
 import com.demo.microservices.exception.InventoryDeductionException;
-import com.demo.microservices.model.Transaction;
+import com.demo.microservices.exception.InventoryUnavailableException;
+import com.demo.microservices.exception.PricingException;
 import com.demo.microservices.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/v1/payment")
@@ -21,27 +24,53 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class PaymentController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final PaymentService paymentService;
 
     @PostMapping("/process")
-    public ResponseEntity<?> processPayment(@RequestBody PurchaseRequest request) {
-        try{
-            Transaction transaction = paymentService.processPayment(request);
-            log.info("Transaction {} completed successfully.", transaction.getTransactionId());
-
-            return new ResponseEntity<>(transaction, HttpStatus.CREATED);
-        } catch (InventoryDeductionException e) {
-            log.warn("Purchase failed: Inventory deduction failed for SKU {}.", e.getFailedSku());
-            TransactionError errorResponse = new TransactionError("TRANSACTION_FAILED", e.getReason());
-
-            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
-        } catch (Exception e) {
-            log.error("Unexpected error during purchase process: {}", e.getMessage(), e);
-            TransactionError errorResponse = new TransactionError(
-                    "TRANSACTION_FAILED",
-                    "INTERNAL_SERVICE_ERROR"
-            );
-            return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    public Mono<ResponseEntity<?>> processPayment(@RequestBody PurchaseRequest request,
+                                                  @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return paymentService.processPayment(request, idempotencyKey)
+                .<ResponseEntity<?>>map(transaction -> {
+                    log.info("Transaction {} completed successfully.", transaction.getTransactionId());
+
+                    return new ResponseEntity<>(transaction, HttpStatus.CREATED);
+                })
+                .onErrorResume(InventoryDeductionException.class, e -> {
+                    log.warn("Purchase failed: Inventory deduction failed for SKU {}.", e.getFailedSku());
+                    TransactionError errorResponse = new TransactionError("TRANSACTION_FAILED", e.getReason());
+
+                    return Mono.just(new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST));
+                })
+                .onErrorResume(PricingException.class, e -> {
+                    log.warn("Purchase failed: could not price SKU {} ({}).", e.getSku(), e.getReason());
+                    TransactionError errorResponse = new TransactionError("TRANSACTION_FAILED", e.getReason());
+
+                    return Mono.just(new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST));
+                })
+                .onErrorResume(IdempotencyKeyException.class, e -> {
+                    log.warn("Purchase rejected: {}", e.getMessage());
+                    TransactionError errorResponse = new TransactionError("TRANSACTION_FAILED", e.getReason());
+                    HttpStatus status = IdempotencyKeyException.REQUEST_MISMATCH.equals(e.getReason())
+                            ? HttpStatus.UNPROCESSABLE_ENTITY
+                            : HttpStatus.CONFLICT;
+
+                    return Mono.just(new ResponseEntity<>(errorResponse, status));
+                })
+                .onErrorResume(InventoryUnavailableException.class, e -> {
+                    log.warn("Purchase failed: {}", e.getMessage());
+                    TransactionError errorResponse = new TransactionError("TRANSACTION_FAILED", "INVENTORY_UNAVAILABLE");
+
+                    return Mono.just(new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE));
+                })
+                .onErrorResume(e -> {
+                    log.error("Unexpected error during purchase process: {}", e.getMessage(), e);
+                    TransactionError errorResponse = new TransactionError(
+                            "TRANSACTION_FAILED",
+                            "INTERNAL_SERVICE_ERROR"
+                    );
+                    return Mono.just(new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR));
+                });
     }
 }
@@ -0,0 +1,94 @@
+package com.demo.microservices.controller;
+
+import com.demo.microservices.analytics.Granularity;
+import com.demo.microservices.configuration.SalesRollupProperties;
+import com.demo.microservices.dto.SalesBucket;
+import com.demo.microservices.dto.SkuSales;
+import com.demo.microservices.service.SalesAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.List;
+
+/**
+ * Sales analytics served from the rollups; figures trail checkouts by up to the rollup flush interval.
+ * Times are ISO-8601 instants and buckets are aligned to UTC.
+ */
+@RestController
+@RequestMapping("/api/v1/payment/analytics")
+@RequiredArgsConstructor
+public class SalesAnalyticsController {
+
+    private static final int DEFAULT_SERIES_BUCKETS = 24;
+
+    private final SalesAnalyticsService analyticsService;
+
+    private final SalesRollupProperties properties;
+
+    @GetMapping("/top-skus")
+    public Mono<List<SkuSales>> getTopSkus(@RequestParam(defaultValue = "DAY") Granularity granularity,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant at,
+                                           @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > properties.getMaxTopSkus()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + properties.getMaxTopSkus());
+        }
+        return analyticsService.topSkus(granularity, at != null ? at : Instant.now(), limit);
+    }
+
+    @GetMapping("/skus/{sku}/units")
+    public Mono<List<SalesBucket>> getSkuSeries(@PathVariable String sku,
+                                                @RequestParam(defaultValue = "HOUR") Granularity granularity,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : defaultStart(granularity, end);
+        checkRange(granularity, start, end);
+        return analyticsService.skuSeries(sku, granularity, start, end);
+    }
+
+    @GetMapping("/revenue/{currency}")
+    public Mono<List<SalesBucket>> getRevenueSeries(@PathVariable String currency,
+                                                    @RequestParam(defaultValue = "DAY") Granularity granularity,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        try {
+            Currency.getInstance(currency);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown currency " + currency);
+        }
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : defaultStart(granularity, end);
+        checkRange(granularity, start, end);
+        return analyticsService.revenueSeries(currency, granularity, start, end);
+    }
+
+    /**
+     * The last {@value #DEFAULT_SERIES_BUCKETS} buckets, including the current one.
+     */
+    private static Instant defaultStart(Granularity granularity, Instant end) {
+        return granularity.bucketOf(end).minus(granularity.width().multipliedBy(DEFAULT_SERIES_BUCKETS - 1));
+    }
+
+    private void checkRange(Granularity granularity, Instant from, Instant to) {
+        if (!from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+        }
+        Duration span = Duration.between(granularity.bucketOf(from), to);
+        long buckets = (span.toMillis() + granularity.width().toMillis() - 1) / granularity.width().toMillis();
+        if (buckets > properties.getMaxBuckets()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Range spans " + buckets + " buckets; at most " + properties.getMaxBuckets() + " allowed");
+        }
+    }
+}
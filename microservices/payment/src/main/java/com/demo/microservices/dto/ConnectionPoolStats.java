@@ -0,0 +1,19 @@
+package com.demo.microservices.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ConnectionPoolStats {
+    private String pool;
+    private String remoteAddress;
+    // Connections currently serving a request
+    private int active;
+    private int idle;
+    private int allocated;
+    // Requests waiting for a connection
+    private int pending;
+    private int maxAllocated;
+    private int maxPending;
+}
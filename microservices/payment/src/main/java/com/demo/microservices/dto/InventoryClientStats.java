@@ -0,0 +1,24 @@
+package com.demo.microservices.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class InventoryClientStats {
+    private String circuitState;
+    // Percentages over the calls currently in the breaker's window
+    private double failureRate;
+    private double slowCallRate;
+    private int bufferedCalls;
+    // Calls rejected because the breaker was open or its half-open trials were taken
+    private long notPermittedCalls;
+    private Map<String, Long> stateTransitions;
+    private int maxConcurrentCalls;
+    private int availableConcurrentCalls;
+    private long bulkheadRejectedCalls;
+    private long retries;
+    private long hedgedCalls;
+}
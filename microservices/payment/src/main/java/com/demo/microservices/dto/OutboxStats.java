@@ -0,0 +1,20 @@
+package com.demo.microservices.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class OutboxStats {
+    private String sink;
+    // Only the lease holder relays; the other replicas report false
+    private boolean leaseHeld;
+    private long pendingTransactions;
+    // Age of the oldest unpublished transaction, 0 when none is waiting
+    private long oldestPendingAgeMillis;
+    private long publishedEvents;
+    private long publishedBatches;
+    private long failedBatches;
+    // From the transaction being stored to its event being in the sink, for the oldest event of the last batch
+    private long lastPublishLagMillis;
+}
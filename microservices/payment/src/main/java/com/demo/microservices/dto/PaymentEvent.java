@@ -0,0 +1,42 @@
+package com.demo.microservices.dto;
+
+import com.demo.microservices.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentEvent {
+
+    public static final String PAYMENT_COMPLETED = "PAYMENT_COMPLETED";
+
+    // Stable across redeliveries, so consumers can drop duplicates
+    private String eventId;
+    private String type;
+    private String transactionId;
+    private String status;
+    private BigDecimal totalAmount;
+    private String currency;
+    private String reservationId;
+    private List<ItemRequest> itemsPurchased;
+    private Instant occurredAt;
+
+    public static PaymentEvent completed(Transaction transaction) {
+        return new PaymentEvent(
+                transaction.getTransactionId() + ":" + PAYMENT_COMPLETED,
+                PAYMENT_COMPLETED,
+                transaction.getTransactionId(),
+                transaction.getStatus(),
+                transaction.getTotalAmount(),
+                transaction.getCurrency(),
+                transaction.getReservationId(),
+                transaction.getItemsPurchased(),
+                transaction.getTimestamp());
+    }
+}
@@ -0,0 +1,20 @@
+package com.demo.microservices.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SalesBucket {
+    private Instant bucketStart;
+    private long units;
+    private long transactions;
+    // Only for revenue series
+    private BigDecimal revenue;
+    private String currency;
+}
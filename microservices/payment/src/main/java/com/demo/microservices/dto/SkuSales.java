@@ -0,0 +1,12 @@
+package com.demo.microservices.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SkuSales {
+    private String sku;
+    private long units;
+    private long transactions;
+}
@@ -0,0 +1,13 @@
+package com.demo.microservices.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+public class StockReservation {
+    private String reservationId;
+    private Instant expiresAt;
+}
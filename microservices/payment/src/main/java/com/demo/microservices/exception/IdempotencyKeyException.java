@@ -0,0 +1,20 @@
+package com.demo.microservices.exception;
+
+import lombok.Getter;
+
+/**
+ * The Idempotency-Key is already taken: by a different request body, or by a request still being processed.
+ */
+@Getter
+public class IdempotencyKeyException extends RuntimeException {
+
+    public static final String REQUEST_MISMATCH = "IDEMPOTENCY_KEY_REUSED";
+    public static final String IN_PROGRESS = "REQUEST_IN_PROGRESS";
+
+    private final String reason;
+
+    public IdempotencyKeyException(String reason) {
+        super("Idempotency-Key rejected: " + reason);
+        this.reason = reason;
+    }
+}
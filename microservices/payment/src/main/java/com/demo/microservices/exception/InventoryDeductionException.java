@@ -5,6 +5,11 @@ import lombok.Getter;
 @Getter
 public class InventoryDeductionException extends RuntimeException {
 
+    // Inventory's answer to releasing a reservation that was committed after all
+    public static final String RESERVATION_ALREADY_COMMITTED = "RESERVATION_ALREADY_COMMITTED";
+    // A retried reservation whose first attempt is still taking its holds; worth retrying shortly
+    public static final String RESERVATION_IN_PROGRESS = "RESERVATION_IN_PROGRESS";
+
     private final String reason;
     private final String failedSku;
 
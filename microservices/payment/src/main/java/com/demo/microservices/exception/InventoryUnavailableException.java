@@ -0,0 +1,20 @@
+package com.demo.microservices.exception;
+
+import lombok.Getter;
+
+/**
+ * The call to inventory was not attempted because its circuit breaker is open or its bulkhead is full.
+ */
+@Getter
+public class InventoryUnavailableException extends RuntimeException {
+
+    public static final String CIRCUIT_OPEN = "CIRCUIT_OPEN";
+    public static final String BULKHEAD_FULL = "BULKHEAD_FULL";
+
+    private final String reason;
+
+    public InventoryUnavailableException(String reason) {
+        super("Inventory Service call rejected: " + reason);
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,16 @@
+package com.demo.microservices.exception;
+
+import lombok.Getter;
+
+@Getter
+public class PricingException extends RuntimeException {
+
+    private final String reason;
+    private final String sku;
+
+    public PricingException(String reason, String sku) {
+        super(String.format("Pricing failed. Reason: %s, SKU: %s", reason, sku));
+        this.reason = reason;
+        this.sku = sku;
+    }
+}
@@ -0,0 +1,48 @@
+package com.demo.microservices.metrics;
+
+import com.demo.microservices.dto.ConnectionPoolStats;
+import org.springframework.stereotype.Component;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the live metrics of every Reactor Netty connection pool (one per remote address) so they can be
+ * read on demand, without a metrics library on the classpath.
+ */
+@Component
+public class ConnectionPoolRegistry implements ConnectionProvider.MeterRegistrar {
+
+    private final Map<String, Registered> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        pools.put(id, new Registered(poolName, String.valueOf(remoteAddress), metrics));
+    }
+
+    // Called by Reactor Netty versions that dispose pools individually
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        pools.remove(id);
+    }
+
+    public List<ConnectionPoolStats> snapshot() {
+        return pools.values().stream()
+                .map(pool -> new ConnectionPoolStats(
+                        pool.name(),
+                        pool.remoteAddress(),
+                        pool.metrics().acquiredSize(),
+                        pool.metrics().idleSize(),
+                        pool.metrics().allocatedSize(),
+                        pool.metrics().pendingAcquireSize(),
+                        pool.metrics().maxAllocatedSize(),
+                        pool.metrics().maxPendingAcquireSize()))
+                .toList();
+    }
+
+    private record Registered(String name, String remoteAddress, ConnectionPoolMetrics metrics) {
+    }
+}
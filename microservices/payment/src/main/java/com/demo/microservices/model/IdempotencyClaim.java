@@ -0,0 +1,29 @@
+package com.demo.microservices.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Ownership of an Idempotency-Key, inserted before any stock is touched. The unique _id lets exactly one
+ * request (on any replica) proceed; the others compare request hashes and wait for its transaction.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotency_keys")
+public class IdempotencyClaim {
+    @Id
+    private String key;
+    private String requestHash;
+    // Chosen up front, so a duplicate can look the transaction up by id before write-behind flushes it
+    private String transactionId;
+    // Keys older than this are answered from the stored transaction (see Transaction.requestHash)
+    @Indexed(expireAfter = "24h")
+    private Instant createdAt;
+}
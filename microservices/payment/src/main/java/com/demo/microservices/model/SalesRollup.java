@@ -0,0 +1,47 @@
+package com.demo.microservices.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Sales counters for one bucket (an hour or a day) and one dimension value: a SKU, or a currency for
+ * revenue. Written only with $inc, so every replica adds into the same documents.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "sales_rollups")
+@CompoundIndexes({
+        // Time series of one SKU or currency
+        @CompoundIndex(name = "series", def = "{'granularity': 1, 'dimension': 1, 'key': 1, 'bucket': 1}"),
+        // Top SKUs within a bucket
+        @CompoundIndex(name = "top", def = "{'granularity': 1, 'dimension': 1, 'bucket': 1, 'units': -1}")
+})
+public class SalesRollup {
+
+    public static final String SKU = "SKU";
+    public static final String CURRENCY = "CURRENCY";
+
+    @Id
+    private String id;
+    private String granularity;
+    private String dimension;
+    private String key;
+    private Instant bucket;
+    private long units;
+    private long transactions;
+    // In the currency's minor units; only kept on CURRENCY rollups
+    private long amountMinor;
+    @Indexed(expireAfterSeconds = 0, sparse = true)
+    private Instant expireAt;
+}
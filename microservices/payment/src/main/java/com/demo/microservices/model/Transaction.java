@@ -1,9 +1,14 @@
 package com.demo.microservices.model;
 
 import com.demo.microservices.dto.ItemRequest;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -12,13 +17,29 @@ import java.util.List;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 @Document(collection = "transactions")
+// Transactions still waiting on their reservation, oldest first, for the stale reservation sweep
+@CompoundIndex(name = "inventory_status_timestamp", def = "{'inventoryStatus': 1, 'timestamp': 1}")
 public class Transaction {
     @Id
     private String transactionId;
     private String status;
     private BigDecimal totalAmount;
+    private String currency;
     private String inventoryStatus;
+    private String reservationId;
     private List<ItemRequest> itemsPurchased;
     private Instant timestamp;
+    @Indexed(unique = true, sparse = true)
+    private String idempotencyKey;
+    // Fingerprint of the request behind the idempotency key; a reused key with another body is rejected
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String requestHash;
+    // Set when the transaction completes and cleared once its payment event is published (see OutboxRelay);
+    // the sparse index holds only that backlog
+    @Indexed(sparse = true)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Instant outboxPendingSince;
 }
@@ -0,0 +1,66 @@
+package com.demo.microservices.outbox;
+
+import com.demo.microservices.dto.PaymentEvent;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process stand-in for a broker: a bounded queue that consumers in the same JVM drain.
+ * When consumers fall behind, publishing fails after a short wait and the relay retries the batch later,
+ * so nothing is dropped; events are lost only if the process dies before they are consumed.
+ */
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final BlockingQueue<PaymentEvent> events;
+
+    public InMemoryOutboxSink(int capacity) {
+        this.events = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void publish(List<PaymentEvent> batch) throws IOException {
+        try {
+            for (PaymentEvent event : batch) {
+                if (!events.offer(event, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    throw new IOException("In-memory outbox sink is full (" + events.size() + " events)");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while publishing", e);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    /**
+     * Next event in publication order, waiting up to the timeout.
+     */
+    public PaymentEvent poll(Duration timeout) throws InterruptedException {
+        return events.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Up to {@code maxEvents} events already waiting, in publication order.
+     */
+    public List<PaymentEvent> drain(int maxEvents) {
+        List<PaymentEvent> drained = new ArrayList<>(Math.min(maxEvents, events.size()));
+        events.drainTo(drained, maxEvents);
+        return drained;
+    }
+
+    public int size() {
+        return events.size();
+    }
+}
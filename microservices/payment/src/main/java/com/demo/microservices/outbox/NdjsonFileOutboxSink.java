@@ -0,0 +1,61 @@
+package com.demo.microservices.outbox;
+
+import com.demo.microservices.dto.PaymentEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events to a local log, one JSON document per line, for consumers that tail the file.
+ * Each batch is written with one append and, when enabled, one fsync.
+ */
+public class NdjsonFileOutboxSink implements OutboxSink, DisposableBean {
+
+    private final FileChannel channel;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper;
+
+    public NdjsonFileOutboxSink(Path file, boolean fsync, ObjectMapper objectMapper) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.fsync = fsync;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<PaymentEvent> events) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(events.size() * 256);
+        for (PaymentEvent event : events) {
+            lines.write(objectMapper.writeValueAsBytes(event));
+            lines.write('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        channel.close();
+    }
+}
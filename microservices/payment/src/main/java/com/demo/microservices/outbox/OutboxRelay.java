@@ -0,0 +1,181 @@
+package com.demo.microservices.outbox;
+
+import com.demo.microservices.configuration.OutboxProperties;
+import com.demo.microservices.dto.OutboxStats;
+import com.demo.microservices.dto.PaymentEvent;
+import com.demo.microservices.model.Transaction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes a {@link PaymentEvent} for every transaction stored with an outbox marker
+ * ({@link Transaction#getOutboxPendingSince()}). The marker is part of the transaction document, so the
+ * event can never be lost or invented by a crash between the two writes. The relay reads unpublished
+ * transactions oldest first through the sparse marker index, which only ever holds the backlog, publishes
+ * them as one batch and then clears their markers with one update. A crash or failure in between
+ * publishes the batch again: delivery is at least once, and each event carries a stable id.
+ * Replicas share a lease in Mongo so only one of them relays at a time.
+ */
+@Component
+@ConditionalOnProperty(prefix = "payment.outbox", name = "enabled", havingValue = "true")
+@Slf4j
+public class OutboxRelay implements InitializingBean, DisposableBean {
+
+    private static final String PENDING = "outboxPendingSince";
+    private static final String LEASE_COLLECTION = "outbox_lease";
+    private static final String LEASE_ID = "payment-events";
+
+    private final MongoTemplate mongoTemplate;
+    private final OutboxSink sink;
+    private final OutboxProperties properties;
+    private final String owner = UUID.randomUUID().toString();
+    private final Thread relay;
+    private final LongAdder publishedEvents = new LongAdder();
+    private final LongAdder publishedBatches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    private volatile boolean running = true;
+    private volatile boolean leaseHeld;
+    private volatile long lastPublishLagMillis = -1;
+    private long leaseRenewAt;
+
+    public OutboxRelay(MongoTemplate mongoTemplate, OutboxSink sink, OutboxProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.sink = sink;
+        this.properties = properties;
+        this.relay = new Thread(this::relayLoop, "payment-outbox-relay");
+        this.relay.setDaemon(true);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        relay.start();
+    }
+
+    public OutboxStats stats() {
+        Query oldest = pending().with(Sort.by(PENDING)).limit(1);
+        oldest.fields().include(PENDING);
+        Transaction first = mongoTemplate.findOne(oldest, Transaction.class);
+        long oldestAge = first != null && first.getOutboxPendingSince() != null
+                ? Math.max(0, System.currentTimeMillis() - first.getOutboxPendingSince().toEpochMilli())
+                : 0;
+        return new OutboxStats(sink.name(), leaseHeld, mongoTemplate.count(pending(), Transaction.class), oldestAge,
+                publishedEvents.sum(), publishedBatches.sum(), failedBatches.sum(), lastPublishLagMillis);
+    }
+
+    private void relayLoop() {
+        while (running) {
+            long pause;
+            try {
+                if (!holdLease()) {
+                    pause = properties.getPollInterval().toMillis();
+                } else {
+                    // A full batch suggests more is waiting, so go again straight away
+                    pause = relayBatch() < properties.getBatchSize() ? properties.getPollInterval().toMillis() : 0;
+                }
+            } catch (IOException | RuntimeException e) {
+                failedBatches.increment();
+                log.error("Outbox relay failed, retrying: {}", e.getMessage());
+                pause = properties.getRetryBackoff().toMillis();
+            }
+            if (pause > 0 && !sleep(pause)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of events published
+     */
+    private int relayBatch() throws IOException {
+        Query query = pending().with(Sort.by(PENDING)).limit(properties.getBatchSize());
+        List<Transaction> batch = mongoTemplate.find(query, Transaction.class);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        sink.publish(batch.stream().map(PaymentEvent::completed).toList());
+
+        List<String> ids = batch.stream().map(Transaction::getTransactionId).toList();
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids)), new Update().unset(PENDING), Transaction.class);
+
+        publishedEvents.add(batch.size());
+        publishedBatches.increment();
+        Instant oldest = batch.get(0).getOutboxPendingSince();
+        if (oldest != null) {
+            lastPublishLagMillis = Math.max(0, System.currentTimeMillis() - oldest.toEpochMilli());
+        }
+        log.debug("Published {} payment events to {}", batch.size(), sink.name());
+        return batch.size();
+    }
+
+    private static Query pending() {
+        return Query.query(Criteria.where(PENDING).exists(true));
+    }
+
+    /**
+     * Takes or renews the lease. The upsert matches while this replica owns it or it has lapsed; otherwise
+     * it tries to insert a second lease with the same id and fails.
+     */
+    private boolean holdLease() {
+        long now = System.currentTimeMillis();
+        if (leaseHeld && now < leaseRenewAt) {
+            return true;
+        }
+        long duration = properties.getLeaseDuration().toMillis();
+        Query claimable = Query.query(Criteria.where("_id").is(LEASE_ID)
+                .orOperator(Criteria.where("owner").is(owner), Criteria.where("expiresAt").lt(new Date(now))));
+        Update claim = new Update().set("owner", owner).set("expiresAt", new Date(now + duration));
+        boolean held;
+        try {
+            mongoTemplate.upsert(claimable, claim, LEASE_COLLECTION);
+            held = true;
+            // Renew well before expiry so a slow batch does not let another replica in
+            leaseRenewAt = now + duration / 3;
+        } catch (DuplicateKeyException e) {
+            held = false;
+        }
+        if (held != leaseHeld) {
+            log.info(held ? "Acquired the outbox relay lease" : "Outbox relay lease is held by another replica");
+        }
+        leaseHeld = held;
+        return held;
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        relay.join(TimeUnit.SECONDS.toMillis(10));
+        if (leaseHeld) {
+            // Let another replica take over now rather than when the lease lapses
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(LEASE_ID).and("owner").is(owner)), LEASE_COLLECTION);
+        }
+    }
+}
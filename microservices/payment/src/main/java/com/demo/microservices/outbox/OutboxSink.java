@@ -0,0 +1,20 @@
+package com.demo.microservices.outbox;
+
+import com.demo.microservices.dto.PaymentEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of outbox events, chosen with {@code payment.outbox.sink}. A real broker client plugs in here.
+ */
+public interface OutboxSink {
+
+    /**
+     * Publishes the batch in order. Returns only once the sink holds every event; a batch that failed,
+     * even part way, is published again whole, so a sink may see an event more than once.
+     */
+    void publish(List<PaymentEvent> events) throws IOException;
+
+    String name();
+}
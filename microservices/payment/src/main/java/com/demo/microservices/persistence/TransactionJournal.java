@@ -0,0 +1,190 @@
+package com.demo.microservices.persistence;
+
+import com.demo.microservices.model.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Local append-only journal of transactions not yet written to Mongo, one JSON document per line.
+ * The journal is split into segments; a segment is deleted once it is sealed and every transaction
+ * appended to it has been released (i.e. flushed to Mongo).
+ */
+@Slf4j
+public class TransactionJournal implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "transactions-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String REJECTED_FILE = "rejected-transactions.jsonl";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper;
+    private Segment current;
+
+    public TransactionJournal(Path directory, long segmentBytes, boolean fsync, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads every transaction left in existing segments (e.g. after a crash). Call before the first append.
+     */
+    public List<Transaction> recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Transaction> recovered = new ArrayList<>();
+        for (Path segment : existingSegments()) {
+            try (BufferedReader reader = Files.newBufferedReader(segment)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        recovered.add(objectMapper.readValue(line, Transaction.class));
+                    } catch (IOException e) {
+                        // A torn last line from a crash mid-append; everything before it is intact
+                        log.warn("Skipping unreadable journal entry in {}: {}", segment.getFileName(), e.getMessage());
+                    }
+                }
+            }
+        }
+        return recovered;
+    }
+
+    /**
+     * Deletes the segments read by {@link #recover()} once their transactions are safely in Mongo.
+     */
+    public void deleteRecovered() throws IOException {
+        for (Path segment : existingSegments()) {
+            if (current == null || !segment.equals(current.path)) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    /**
+     * Appends the transaction and returns the segment it was written to, to be {@link #release released} later.
+     */
+    public synchronized Segment append(Transaction transaction) throws IOException {
+        if (current == null) {
+            current = openSegment();
+        }
+        byte[] json = objectMapper.writeValueAsBytes(transaction);
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            current.channel.write(buffer);
+        }
+        if (fsync) {
+            current.channel.force(false);
+        }
+        current.size += json.length + 1;
+        current.outstanding.incrementAndGet();
+
+        Segment written = current;
+        if (current.size >= segmentBytes) {
+            current = null;
+            written.seal();
+        }
+        return written;
+    }
+
+    /**
+     * Keeps a transaction Mongo refused for good in a separate file for manual review. It is never replayed,
+     * so the caller can release its segment afterwards.
+     */
+    public synchronized void reject(Transaction transaction) throws IOException {
+        Files.createDirectories(directory);
+        byte[] json = objectMapper.writeValueAsBytes(transaction);
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+        try (FileChannel channel = FileChannel.open(directory.resolve(REJECTED_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Marks one transaction of the segment as durable in Mongo.
+     */
+    public void release(Segment segment) {
+        if (segment.outstanding.decrementAndGet() == 0 && segment.sealed) {
+            segment.delete();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (current != null) {
+            current.channel.close();
+        }
+    }
+
+    private Segment openSegment() throws IOException {
+        Path path = directory.resolve(SEGMENT_PREFIX + System.currentTimeMillis() + "-" + System.nanoTime() + SEGMENT_SUFFIX);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        return new Segment(path, channel);
+    }
+
+    private List<Path> existingSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    public static final class Segment {
+        private final Path path;
+        private final FileChannel channel;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicBoolean deleted = new AtomicBoolean();
+        private volatile boolean sealed;
+        private long size;
+
+        private Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        private void seal() {
+            sealed = true;
+            if (outstanding.get() == 0) {
+                delete();
+            }
+        }
+
+        private void delete() {
+            if (!deleted.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete journal segment " + path, e);
+            }
+        }
+    }
+}
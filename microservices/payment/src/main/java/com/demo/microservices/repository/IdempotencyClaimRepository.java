@@ -0,0 +1,9 @@
+package com.demo.microservices.repository;
+
+import com.demo.microservices.model.IdempotencyClaim;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyClaimRepository extends ReactiveMongoRepository<IdempotencyClaim, String> {
+}
@@ -1,9 +1,12 @@
 package com.demo.microservices.repository;
 
 import com.demo.microservices.model.Transaction;
-import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
 
 @Repository
-public interface PaymentRepository extends MongoRepository<Transaction, String> {
+public interface PaymentRepository extends ReactiveMongoRepository<Transaction, String> {
+
+    Mono<Transaction> findByIdempotencyKey(String idempotencyKey);
 }
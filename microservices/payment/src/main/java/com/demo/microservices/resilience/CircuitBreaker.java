@@ -0,0 +1,175 @@
+package com.demo.microservices.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Count-based sliding-window circuit breaker.
+ * CLOSED: every call is allowed and its outcome recorded; once the window holds enough calls and the
+ * failure or slow-call rate reaches its threshold, the breaker opens.
+ * OPEN: calls are rejected until the wait duration has passed, then the breaker turns half-open.
+ * HALF_OPEN: a fixed number of trial calls is allowed; their failure and slow-call rates decide
+ * whether the breaker closes again or re-opens.
+ * Critical sections are a few field updates, so one monitor is cheaper than lock-free bookkeeping here.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final int slowCallRateThreshold;
+    private final long waitInOpenNanos;
+    private final int permittedHalfOpenCalls;
+
+    // Ring of the last window outcomes
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int buffered;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openUntilNanos;
+    private int halfOpenInFlight;
+    private int halfOpenCalls;
+    private int halfOpenFailures;
+    private int halfOpenSlowCalls;
+
+    private long notPermitted;
+    private final Map<State, Long> transitionsTo = new EnumMap<>(State.class);
+
+    public CircuitBreaker(String name, int slidingWindowSize, int minimumCalls, int failureRateThreshold,
+                          long slowCallNanos, int slowCallRateThreshold, long waitInOpenNanos, int permittedHalfOpenCalls) {
+        this.name = name;
+        this.minimumCalls = Math.min(minimumCalls, slidingWindowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallNanos;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.waitInOpenNanos = waitInOpenNanos;
+        this.permittedHalfOpenCalls = permittedHalfOpenCalls;
+        this.failed = new boolean[slidingWindowSize];
+        this.slow = new boolean[slidingWindowSize];
+    }
+
+    /**
+     * @return whether the call may proceed; a permitted call must end in {@link #onResult} or {@link #releasePermission}
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openUntilNanos < 0) {
+                notPermitted++;
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight + halfOpenCalls >= permittedHalfOpenCalls) {
+                notPermitted++;
+                return false;
+            }
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a permission without an outcome, e.g. when the call was cancelled.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenInFlight > 0) {
+            halfOpenInFlight--;
+        }
+    }
+
+    public synchronized void onResult(long durationNanos, boolean failure) {
+        boolean slowCall = durationNanos >= slowCallNanos;
+        switch (state) {
+            case CLOSED -> {
+                record(failure, slowCall);
+                if (buffered >= minimumCalls && exceedsThresholds(failures, slowCalls, buffered)) {
+                    transitionTo(State.OPEN);
+                }
+            }
+            case HALF_OPEN -> {
+                if (halfOpenInFlight == 0) {
+                    // A call permitted before the breaker opened; it says nothing about recovery
+                    return;
+                }
+                halfOpenInFlight--;
+                halfOpenCalls++;
+                halfOpenFailures += failure ? 1 : 0;
+                halfOpenSlowCalls += slowCall ? 1 : 0;
+                if (halfOpenCalls >= permittedHalfOpenCalls) {
+                    transitionTo(exceedsThresholds(halfOpenFailures, halfOpenSlowCalls, halfOpenCalls) ? State.OPEN : State.CLOSED);
+                }
+            }
+            case OPEN -> {
+                // Outcome of a call that started before the breaker opened
+            }
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(name, state,
+                buffered == 0 ? 0 : failures * 100.0 / buffered,
+                buffered == 0 ? 0 : slowCalls * 100.0 / buffered,
+                buffered, notPermitted, new EnumMap<>(transitionsTo));
+    }
+
+    private boolean exceedsThresholds(int failures, int slowCalls, int calls) {
+        return failures * 100 >= failureRateThreshold * calls || slowCalls * 100 >= slowCallRateThreshold * calls;
+    }
+
+    private void record(boolean failure, boolean slowCall) {
+        if (buffered == failed.length) {
+            failures -= failed[next] ? 1 : 0;
+            slowCalls -= slow[next] ? 1 : 0;
+        } else {
+            buffered++;
+        }
+        failed[next] = failure;
+        slow[next] = slowCall;
+        failures += failure ? 1 : 0;
+        slowCalls += slowCall ? 1 : 0;
+        next = (next + 1) % failed.length;
+    }
+
+    private void transitionTo(State target) {
+        State previous = state;
+        state = target;
+        transitionsTo.merge(target, 1L, Long::sum);
+        switch (target) {
+            case OPEN -> openUntilNanos = System.nanoTime() + waitInOpenNanos;
+            case HALF_OPEN -> {
+                halfOpenInFlight = 0;
+                halfOpenCalls = 0;
+                halfOpenFailures = 0;
+                halfOpenSlowCalls = 0;
+            }
+            case CLOSED -> {
+                next = 0;
+                buffered = 0;
+                failures = 0;
+                slowCalls = 0;
+            }
+        }
+        if (target == State.OPEN) {
+            log.warn("Circuit breaker '{}' {} -> {}", name, previous, target);
+        } else {
+            log.info("Circuit breaker '{}' {} -> {}", name, previous, target);
+        }
+    }
+
+    public record Snapshot(String name, State state, double failureRate, double slowCallRate,
+                           int bufferedCalls, long notPermittedCalls, Map<State, Long> transitionsTo) {
+    }
+}
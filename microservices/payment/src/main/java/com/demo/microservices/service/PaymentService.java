@@ -2,8 +2,18 @@ package com.demo.microservices.service;
 
 import com.demo.microservices.dto.PurchaseRequest;
 import com.demo.microservices.model.Transaction;
+import reactor.core.publisher.Mono;
 
 public interface PaymentService {
 
-    Transaction processPayment(PurchaseRequest request);
+    Mono<Transaction> processPayment(PurchaseRequest request);
+
+    /**
+     * Like {@link #processPayment(PurchaseRequest)}, but executes at most once per idempotency key:
+     * duplicates share the in-flight execution or replay its stored result.
+     *
+     * @throws com.demo.microservices.exception.IdempotencyKeyException (as an error signal) when the key was used
+     *         for a different request, or its request is still being processed elsewhere
+     */
+    Mono<Transaction> processPayment(PurchaseRequest request, String idempotencyKey);
 }
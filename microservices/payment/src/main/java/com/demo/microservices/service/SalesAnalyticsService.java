@@ -0,0 +1,31 @@
+package com.demo.microservices.service;
+
+import com.demo.microservices.analytics.Granularity;
+import com.demo.microservices.dto.SalesBucket;
+import com.demo.microservices.dto.SkuSales;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Sales figures read from the pre-aggregated rollups; each answer reads one rollup document per bucket
+ * (or per returned SKU), however many transactions it covers.
+ */
+public interface SalesAnalyticsService {
+
+    /**
+     * Best-selling SKUs by units within the hour or day containing {@code at}.
+     */
+    Mono<List<SkuSales>> topSkus(Granularity granularity, Instant at, int limit);
+
+    /**
+     * Units sold of one SKU per bucket over [from, to), with empty buckets included as zeros.
+     */
+    Mono<List<SalesBucket>> skuSeries(String sku, Granularity granularity, Instant from, Instant to);
+
+    /**
+     * Revenue, transactions and units in one currency per bucket over [from, to), with empty buckets included as zeros.
+     */
+    Mono<List<SalesBucket>> revenueSeries(String currency, Granularity granularity, Instant from, Instant to);
+}
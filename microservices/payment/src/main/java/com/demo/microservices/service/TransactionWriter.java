@@ -0,0 +1,12 @@
+package com.demo.microservices.service;
+
+import com.demo.microservices.model.Transaction;
+import reactor.core.publisher.Mono;
+
+public interface TransactionWriter {
+
+    /**
+     * Persists a completed transaction. Completes once the transaction is durable (in Mongo or in the local journal).
+     */
+    Mono<Transaction> write(Transaction transaction);
+}
@@ -0,0 +1,22 @@
+package com.demo.microservices.service.impl;
+
+import com.demo.microservices.model.Transaction;
+import com.demo.microservices.repository.PaymentRepository;
+import com.demo.microservices.service.TransactionWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+@ConditionalOnProperty(prefix = "payment.write-behind", name = "enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DirectTransactionWriter implements TransactionWriter {
+
+    private final PaymentRepository repository;
+
+    @Override
+    public Mono<Transaction> write(Transaction transaction) {
+        return repository.save(transaction);
+    }
+}
@@ -1,21 +1,37 @@
 package com.demo.microservices.service.impl;
 
+import com.demo.microservices.cache.IdempotencyCache;
+import com.demo.microservices.cache.PriceSnapshotCache;
 import com.demo.microservices.client.InventoryClient;
 import com.demo.microservices.dto.DeductRequest;
 import com.demo.microservices.dto.ItemRequest;
+import com.demo.microservices.dto.PriceSnapshot;
 import com.demo.microservices.dto.PurchaseRequest;
+import com.demo.microservices.exception.IdempotencyKeyException;
+import com.demo.microservices.exception.InventoryDeductionException;
+import com.demo.microservices.exception.PricingException;
+import com.demo.microservices.model.IdempotencyClaim;
 import com.demo.microservices.model.Transaction;
+import com.demo.microservices.repository.IdempotencyClaimRepository;
 import com.demo.microservices.repository.PaymentRepository;
 import com.demo.microservices.service.PaymentService;
+import com.demo.microservices.service.TransactionWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.Currency;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -24,37 +40,229 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PaymentServiceImpl implements PaymentService {
 
-    private final PaymentRepository repository;
+    private final TransactionWriter transactionWriter;
 
     private final InventoryClient client;
 
+    private final PaymentRepository repository;
+
+    private final IdempotencyCache idempotencyCache;
+
+    private final PriceSnapshotCache priceSnapshotCache;
+
+    private final TransactionSettler settler;
+
+    private final IdempotencyClaimRepository claimRepository;
+
+    @Override
+    @Transactional
+    public Mono<Transaction> processPayment(PurchaseRequest request, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return processPayment(request);
+        }
+        String requestHash = fingerprint(request);
+        return idempotencyCache.execute(idempotencyKey, requestHash, () -> {
+            // Claimed before stock is touched, so a duplicate on another replica never reserves anything
+            IdempotencyClaim claim = new IdempotencyClaim(idempotencyKey, requestHash, newTransactionId(), Instant.now());
+            return claimRepository.insert(claim)
+                    .flatMap(claimed -> replayStored(claimed)
+                            .switchIfEmpty(Mono.defer(() -> execute(request, claimed))))
+                    .onErrorResume(DuplicateKeyException.class, e -> replayClaimed(idempotencyKey, requestHash));
+        });
+    }
+
     @Override
     @Transactional
-    public Transaction processPayment(PurchaseRequest request) {
+    public Mono<Transaction> processPayment(PurchaseRequest request) {
+        return execute(request, null);
+    }
+
+    /**
+     * A transaction stored under the key before its claim expired; replayed only for the same request.
+     * The fresh claim is dropped again, since it points at a transaction that will never exist.
+     */
+    private Mono<Transaction> replayStored(IdempotencyClaim claim) {
+        return repository.findByIdempotencyKey(claim.getKey())
+                .flatMap(stored -> releaseClaim(claim).then(Mono.defer(() -> {
+                    if (stored.getRequestHash() != null && !stored.getRequestHash().equals(claim.getRequestHash())) {
+                        return Mono.error(new IdempotencyKeyException(IdempotencyKeyException.REQUEST_MISMATCH));
+                    }
+                    log.info("Replaying transaction {} for idempotency key.", stored.getTransactionId());
+                    return Mono.just(stored);
+                })));
+    }
+
+    /**
+     * The key is owned by another request: reject a different body, replay the transaction once it is stored,
+     * and ask the client to retry while the owner is still running or its transaction is not flushed yet.
+     */
+    private Mono<Transaction> replayClaimed(String idempotencyKey, String requestHash) {
+        return claimRepository.findById(idempotencyKey)
+                .flatMap(claim -> {
+                    if (!claim.getRequestHash().equals(requestHash)) {
+                        return Mono.error(new IdempotencyKeyException(IdempotencyKeyException.REQUEST_MISMATCH));
+                    }
+                    return repository.findById(claim.getTransactionId());
+                })
+                .doOnNext(stored -> log.info("Replaying transaction {} for idempotency key.", stored.getTransactionId()))
+                .switchIfEmpty(Mono.error(() -> new IdempotencyKeyException(IdempotencyKeyException.IN_PROGRESS)));
+    }
+
+    private Mono<Transaction> execute(PurchaseRequest request, IdempotencyClaim claim) {
             List<DeductRequest> inventoryRequests = request.getItems().stream()
                     .map(item -> new DeductRequest(item.getSku(), item.getQuantity()))
                     .collect(Collectors.toList());
+            List<String> skus = request.getItems().stream()
+                    .map(ItemRequest::getSku)
+                    .distinct()
+                    .collect(Collectors.toList());
+
+            // One token per checkout, so a retried reservation is recognised by inventory instead of held twice
+            String reservationToken = UUID.randomUUID().toString();
+
+            // Price before reserving, so an unpriceable basket never touches stock
+            return priceSnapshotCache.getAll(skus)
+                    .map(prices -> calculateTotal(request.getItems(), prices))
+                    .onErrorResume(e -> releaseClaim(claim).then(Mono.error(e)))
+                    .flatMap(total -> client.reserveStock(inventoryRequests, reservationToken)
+                            .onErrorResume(e -> releaseClaim(claim).then(Mono.error(e)))
+                            .flatMap(reservation -> complete(request, claim, total, reservation.getReservationId())));
+    }
+
+    /**
+     * Stores the transaction as PENDING while the stock is only reserved, commits the reservation and only
+     * then completes the transaction. If the transaction cannot be stored the reservation is released; if the
+     * commit fails the reservation is released and the transaction fails. Whatever is left RESERVED by a crash
+     * or an unreachable inventory is settled by the {@link StaleReservationSweeper}.
+     */
+    private Mono<Transaction> complete(PurchaseRequest request, IdempotencyClaim claim, BasketTotal total, String reservationId) {
+        BigDecimal totalAmount = total.amount();
+        log.info("Payment captured successfully for amount: {} {}", totalAmount, total.currency());
 
-            client.deductStock(inventoryRequests);
-            log.info("Stock successfully deducted for transaction.");
+        Transaction transaction = Transaction.builder()
+                .transactionId(claim != null ? claim.getTransactionId() : newTransactionId())
+                .status(TransactionSettler.PENDING)
+                .totalAmount(totalAmount)
+                .currency(total.currency())
+                .inventoryStatus(TransactionSettler.RESERVED)
+                .reservationId(reservationId)
+                .itemsPurchased(request.getItems())
+                .timestamp(Instant.now())
+                .idempotencyKey(claim != null ? claim.getKey() : null)
+                .requestHash(claim != null ? claim.getRequestHash() : null)
+                .build();
+
+        return transactionWriter.write(transaction)
+                .onErrorResume(e -> client.releaseReservation(reservationId)
+                        .onErrorResume(releaseError -> {
+                            log.warn("Could not release reservation {}; it will expire: {}", reservationId, releaseError.getMessage());
+                            return Mono.empty();
+                        })
+                        .then(releaseClaim(claim))
+                        .then(Mono.error(e)))
+                .flatMap(this::commit);
+    }
 
-            BigDecimal totalAmount = calculateTotal(request.getItems());
-            log.info("Payment captured successfully for amount: {}", totalAmount);
+    private Mono<Transaction> commit(Transaction saved) {
+        String reservationId = saved.getReservationId();
+        // The client retries transient commit failures itself
+        return client.commitReservation(reservationId)
+                .then(Mono.just(true))
+                .onErrorResume(commitError -> {
+                    log.error("Reservation {} of transaction {} was not committed: {}",
+                            reservationId, saved.getTransactionId(), commitError.getMessage());
+                    return client.releaseReservation(reservationId)
+                            .then(Mono.just(false))
+                            // The commit went through after all, e.g. only its response was lost
+                            .onErrorResume(InventoryDeductionException.class, releaseError ->
+                                    InventoryDeductionException.RESERVATION_ALREADY_COMMITTED.equals(releaseError.getReason())
+                                            ? Mono.just(true)
+                                            : Mono.<Boolean>error(releaseError))
+                            .onErrorResume(releaseError -> {
+                                log.warn("Could not release reservation {}; left for the sweep: {}", reservationId, releaseError.getMessage());
+                                return Mono.error(commitError);
+                            })
+                            .flatMap(committed -> committed
+                                    ? Mono.just(true)
+                                    : settler.settle(saved, false).then(Mono.<Boolean>error(commitError)));
+                })
+                .flatMap(committed -> settler.settle(saved, true))
+                .doOnNext(settled -> log.info("Stock successfully deducted for transaction."));
+    }
+
+    /**
+     * Frees the key for a retry when the checkout failed before its transaction was stored.
+     */
+    private Mono<Void> releaseClaim(IdempotencyClaim claim) {
+        if (claim == null) {
+            return Mono.empty();
+        }
+        return claimRepository.deleteById(claim.getKey())
+                .onErrorResume(e -> {
+                    log.warn("Could not release idempotency key claim; it expires on its own: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private static String newTransactionId() {
+        return "T-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * SHA-256 over the basket lines in request order. Card details are left out so no digest of them is stored.
+     */
+    static String fingerprint(PurchaseRequest request) {
+        StringBuilder canonical = new StringBuilder();
+        for (ItemRequest item : request.getItems()) {
+            canonical.append(item.getSku()).append('\t').append(item.getQuantity()).append('\n');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 
-            Transaction transaction = Transaction.builder()
-                    .transactionId("T-" + UUID.randomUUID().toString().substring(0, 8))
-                    .status("COMPLETED")
-                    .totalAmount(totalAmount)
-                    .inventoryStatus("DEDUCTION_COMMITTED")
-                    .itemsPurchased(request.getItems())
-                    .timestamp(Instant.now())
-                    .build();
-            return repository.save(transaction);
+    /**
+     * Sums the basket in minor units of its single currency and converts it to an amount, so nothing about the
+     * price can fail once stock is reserved. Static and package-private so the payment benchmarks can call it
+     * without building the service.
+     *
+     * @throws PricingException when a SKU has no price, the basket mixes currencies, the currency is unknown
+     *                          or the total does not fit in a long
+     */
+    static BasketTotal calculateTotal(List<ItemRequest> items, Map<String, PriceSnapshot> prices) {
+        long minorUnits = 0;
+        String currency = null;
+        for (ItemRequest item : items) {
+            PriceSnapshot price = prices.get(item.getSku());
+            if (price == null) {
+                throw new PricingException("PRICE_NOT_FOUND", item.getSku());
+            }
+            if (currency == null) {
+                currency = price.getCurrency();
+            } else if (!currency.equals(price.getCurrency())) {
+                throw new PricingException("CURRENCY_MISMATCH", item.getSku());
+            }
+            try {
+                minorUnits = Math.addExact(minorUnits, Math.multiplyExact(price.getPrice(), item.getQuantity()));
+            } catch (ArithmeticException e) {
+                throw new PricingException("TOTAL_OUT_OF_RANGE", item.getSku());
+            }
+        }
+        int fractionDigits = 2;
+        if (currency != null) {
+            try {
+                fractionDigits = Currency.getInstance(currency).getDefaultFractionDigits();
+            } catch (IllegalArgumentException e) {
+                throw new PricingException("UNKNOWN_CURRENCY", items.get(0).getSku());
+            }
+        }
+        // Converted once per transaction rather than per line
+        return new BasketTotal(BigDecimal.valueOf(minorUnits, Math.max(fractionDigits, 0)), currency);
     }
 
-    private BigDecimal calculateTotal(List<ItemRequest> items) {
-        return items.stream()
-                .map(item -> BigDecimal.valueOf(19.99).multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    record BasketTotal(BigDecimal amount, String currency) {
     }
 }
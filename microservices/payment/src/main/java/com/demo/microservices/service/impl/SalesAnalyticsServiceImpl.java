@@ -0,0 +1,81 @@
+package com.demo.microservices.service.impl;
+
+import com.demo.microservices.analytics.Granularity;
+import com.demo.microservices.dto.SalesBucket;
+import com.demo.microservices.dto.SkuSales;
+import com.demo.microservices.model.SalesRollup;
+import com.demo.microservices.service.SalesAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class SalesAnalyticsServiceImpl implements SalesAnalyticsService {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<List<SkuSales>> topSkus(Granularity granularity, Instant at, int limit) {
+        Query query = Query.query(Criteria.where("granularity").is(granularity.name())
+                        .and("dimension").is(SalesRollup.SKU)
+                        .and("bucket").is(granularity.bucketOf(at)))
+                .with(Sort.by(Sort.Direction.DESC, "units"))
+                .limit(limit);
+        return mongoTemplate.find(query, SalesRollup.class)
+                .map(rollup -> new SkuSales(rollup.getKey(), rollup.getUnits(), rollup.getTransactions()))
+                .collectList();
+    }
+
+    @Override
+    public Mono<List<SalesBucket>> skuSeries(String sku, Granularity granularity, Instant from, Instant to) {
+        return series(SalesRollup.SKU, sku, granularity, from, to, (bucket, rollup) -> rollup == null
+                ? new SalesBucket(bucket, 0, 0, null, null)
+                : new SalesBucket(bucket, rollup.getUnits(), rollup.getTransactions(), null, null));
+    }
+
+    @Override
+    public Mono<List<SalesBucket>> revenueSeries(String currency, Granularity granularity, Instant from, Instant to) {
+        int fractionDigits = Math.max(Currency.getInstance(currency).getDefaultFractionDigits(), 0);
+        return series(SalesRollup.CURRENCY, currency, granularity, from, to, (bucket, rollup) -> rollup == null
+                ? new SalesBucket(bucket, 0, 0, BigDecimal.valueOf(0, fractionDigits), currency)
+                : new SalesBucket(bucket, rollup.getUnits(), rollup.getTransactions(),
+                        BigDecimal.valueOf(rollup.getAmountMinor(), fractionDigits), currency));
+    }
+
+    private Mono<List<SalesBucket>> series(String dimension, String key, Granularity granularity, Instant from, Instant to,
+                                           BucketMapper mapper) {
+        Instant first = granularity.bucketOf(from);
+        Query query = Query.query(Criteria.where("granularity").is(granularity.name())
+                .and("dimension").is(dimension)
+                .and("key").is(key)
+                .and("bucket").gte(first).lt(to));
+        return mongoTemplate.find(query, SalesRollup.class)
+                .collect(Collectors.toMap(SalesRollup::getBucket, Function.identity()))
+                .map(byBucket -> {
+                    List<SalesBucket> buckets = new ArrayList<>();
+                    for (Instant bucket = first; bucket.isBefore(to); bucket = bucket.plus(granularity.width())) {
+                        buckets.add(mapper.map(bucket, byBucket.get(bucket)));
+                    }
+                    return buckets;
+                });
+    }
+
+    @FunctionalInterface
+    private interface BucketMapper {
+        SalesBucket map(Instant bucket, SalesRollup rollup);
+    }
+}
@@ -0,0 +1,88 @@
+package com.demo.microservices.service.impl;
+
+import com.demo.microservices.client.InventoryClient;
+import com.demo.microservices.configuration.SettlementProperties;
+import com.demo.microservices.exception.InventoryDeductionException;
+import com.demo.microservices.model.Transaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Settles transactions a checkout left RESERVED, e.g. because its replica died between storing the
+ * transaction and committing, or the release after a failed commit did not get through. The payment was
+ * taken, so the reservation is committed while inventory still holds it; a reservation inventory already
+ * let go fails the transaction. Every replica sweeps; the settle update lets only one of them win.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StaleReservationSweeper implements InitializingBean, DisposableBean {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final InventoryClient client;
+    private final TransactionSettler settler;
+    private final SettlementProperties properties;
+    private Disposable sweeps;
+
+    @Override
+    public void afterPropertiesSet() {
+        sweeps = Flux.interval(properties.getSweepInterval())
+                // A slow sweep skips ticks instead of queueing them
+                .onBackpressureDrop()
+                .concatMap(tick -> sweep()
+                        .onErrorResume(e -> {
+                            log.error("Stale reservation sweep failed, retrying next interval: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    Mono<Void> sweep() {
+        Query stale = Query.query(Criteria.where(TransactionSettler.INVENTORY_STATUS).is(TransactionSettler.RESERVED)
+                        .and("timestamp").lt(Instant.now().minus(properties.getStaleAfter())))
+                .with(Sort.by("timestamp"))
+                .limit(properties.getSweepBatchSize());
+        return mongoTemplate.find(stale, Transaction.class)
+                .concatMap(this::settle)
+                .count()
+                .doOnNext(settled -> {
+                    if (settled > 0) {
+                        log.info("Settled {} stale reserved transactions", settled);
+                    }
+                })
+                .then();
+    }
+
+    private Mono<Transaction> settle(Transaction transaction) {
+        return client.commitReservation(transaction.getReservationId())
+                .then(Mono.defer(() -> settler.settle(transaction, true)))
+                .onErrorResume(InventoryDeductionException.class, e -> {
+                    log.warn("Reservation {} of transaction {} is gone from inventory ({}); failing the transaction",
+                            transaction.getReservationId(), transaction.getTransactionId(), e.getReason());
+                    return settler.settle(transaction, false);
+                })
+                .onErrorResume(e -> {
+                    log.warn("Transaction {} left for the next sweep: {}", transaction.getTransactionId(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public void destroy() {
+        if (sweeps != null) {
+            sweeps.dispose();
+        }
+    }
+}
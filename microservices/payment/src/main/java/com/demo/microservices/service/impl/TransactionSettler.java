@@ -0,0 +1,81 @@
+package com.demo.microservices.service.impl;
+
+import com.demo.microservices.analytics.SalesRollupRecorder;
+import com.demo.microservices.configuration.OutboxProperties;
+import com.demo.microservices.model.Transaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Moves a transaction out of RESERVED once inventory has answered: COMPLETED when the reservation was
+ * committed, FAILED when it was released. Only a completed transaction is counted in the sales rollups
+ * (when they are enabled) and marked for the outbox, in the same update that completes it.
+ * The move is an upsert conditional on inventoryStatus, so the checkout and the stale reservation sweep
+ * may race on a transaction and exactly one of them settles it. The upsert also covers a transaction
+ * write-behind has not flushed yet; its later insert is then skipped as a duplicate id.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionSettler {
+
+    static final String PENDING = "PENDING";
+    static final String COMPLETED = "COMPLETED";
+    static final String FAILED = "FAILED";
+    static final String RESERVED = "RESERVED";
+    static final String COMMITTED = "COMMITTED";
+    static final String RELEASED = "RELEASED";
+
+    static final String STATUS = "status";
+    static final String INVENTORY_STATUS = "inventoryStatus";
+    private static final String OUTBOX_PENDING_SINCE = "outboxPendingSince";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final OutboxProperties outboxProperties;
+    private final ObjectProvider<SalesRollupRecorder> salesRollupRecorder;
+
+    /**
+     * @param committed whether inventory committed the reservation (true) or let it go (false)
+     * @return the transaction as settled, by this call or by whoever got there first
+     */
+    public Mono<Transaction> settle(Transaction reserved, boolean committed) {
+        Update update = new Update()
+                .set(STATUS, committed ? COMPLETED : FAILED)
+                .set(INVENTORY_STATUS, committed ? COMMITTED : RELEASED);
+        if (committed && outboxProperties.isEnabled()) {
+            update.set(OUTBOX_PENDING_SINCE, Instant.now());
+        }
+        Document fields = new Document();
+        mongoTemplate.getConverter().write(reserved, fields);
+        fields.forEach((field, value) -> {
+            if (!"_id".equals(field) && !update.modifies(field)) {
+                update.setOnInsert(field, value);
+            }
+        });
+
+        Query stillReserved = Query.query(Criteria.where("_id").is(reserved.getTransactionId()).and(INVENTORY_STATUS).is(RESERVED));
+        return mongoTemplate.findAndModify(stillReserved, update,
+                        FindAndModifyOptions.options().upsert(true).returnNew(true), Transaction.class)
+                .doOnNext(settled -> {
+                    log.info("Transaction {} settled as {}", settled.getTransactionId(), settled.getStatus());
+                    if (committed) {
+                        salesRollupRecorder.ifAvailable(recorder -> recorder.record(settled));
+                    }
+                })
+                // Already settled: the upsert found no RESERVED document and collided with the settled one
+                .onErrorResume(DuplicateKeyException.class,
+                        e -> mongoTemplate.findById(reserved.getTransactionId(), Transaction.class));
+    }
+}
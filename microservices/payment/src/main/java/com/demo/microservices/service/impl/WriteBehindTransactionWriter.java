@@ -0,0 +1,182 @@
+package com.demo.microservices.service.impl;
+
+import com.demo.microservices.configuration.WriteBehindProperties;
+import com.demo.microservices.model.Transaction;
+import com.demo.microservices.persistence.TransactionJournal;
+import com.demo.microservices.repository.PaymentRepository;
+import com.demo.microservices.service.TransactionWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for transactions: each transaction is appended to a local journal and queued,
+ * and a background flusher writes the queue to Mongo with batched insertMany calls.
+ * The journal is replayed on startup, so a crash between journaling and flushing loses nothing.
+ */
+@Component
+@ConditionalOnProperty(prefix = "payment.write-behind", name = "enabled", havingValue = "true")
+@Slf4j
+public class WriteBehindTransactionWriter implements TransactionWriter, DisposableBean {
+
+    private static final long RETRY_BACKOFF_MILLIS = 1_000;
+    // How a duplicate key error names the primary key index
+    private static final String ID_INDEX = "index: _id_ ";
+
+    private final PaymentRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final WriteBehindProperties properties;
+    private final TransactionJournal journal;
+    private final BlockingQueue<Pending> queue;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public WriteBehindTransactionWriter(PaymentRepository repository, MongoTemplate mongoTemplate,
+                                        WriteBehindProperties properties, ObjectMapper objectMapper) throws IOException {
+        this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.journal = new TransactionJournal(Path.of(properties.getJournalDirectory()),
+                properties.getJournalSegmentBytes(), properties.isFsync(), objectMapper);
+
+        replayJournal();
+
+        this.flusher = new Thread(this::flushLoop, "transaction-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    @Override
+    public Mono<Transaction> write(Transaction transaction) {
+        // Journal I/O is blocking, so keep it off the event loop
+        return Mono.fromCallable(() -> journal.append(transaction))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(segment -> {
+                    if (queue.offer(new Pending(transaction, segment))) {
+                        return Mono.just(transaction);
+                    }
+                    // Back-pressure: the flusher is behind, so this checkout pays for its own write
+                    log.warn("Write-behind queue full; saving transaction {} directly", transaction.getTransactionId());
+                    return repository.save(transaction)
+                            .doOnSuccess(saved -> journal.release(segment));
+                });
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(properties.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(properties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + properties.getFlushInterval().toNanos();
+                while (batch.size() < properties.getBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) throws InterruptedException {
+        List<Transaction> transactions = batch.stream().map(Pending::transaction).toList();
+        while (true) {
+            try {
+                insertIgnoringDuplicates(transactions);
+                batch.forEach(pending -> journal.release(pending.segment()));
+                log.debug("Flushed {} transactions to Mongo", transactions.size());
+                return;
+            } catch (RuntimeException e) {
+                // Still journaled, so keep the batch and retry rather than dropping it
+                log.error("Failed to flush {} transactions, retrying: {}", transactions.size(), e.getMessage());
+                Thread.sleep(RETRY_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void replayJournal() throws IOException {
+        List<Transaction> recovered = journal.recover();
+        if (recovered.isEmpty()) {
+            return;
+        }
+        log.info("Replaying {} journaled transactions", recovered.size());
+        for (int from = 0; from < recovered.size(); from += properties.getBatchSize()) {
+            insertIgnoringDuplicates(recovered.subList(from, Math.min(from + properties.getBatchSize(), recovered.size())));
+        }
+        journal.deleteRecovered();
+    }
+
+    /**
+     * One unordered insertMany. Transactions already stored (same id) are skipped, which makes replays idempotent.
+     * A duplicate on any other unique index (the idempotency key) is a conflicting transaction that no retry
+     * will store: it is moved to the journal's rejected file and reported instead of being dropped silently.
+     */
+    private void insertIgnoringDuplicates(List<Transaction> transactions) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class)
+                    .insert(transactions)
+                    .execute();
+        } catch (BulkOperationException e) {
+            boolean onlyDuplicates = e.getErrors().stream()
+                    .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+            for (BulkWriteError error : e.getErrors()) {
+                if (!error.getMessage().contains(ID_INDEX)) {
+                    reject(transactions.get(error.getIndex()), error.getMessage());
+                }
+            }
+        }
+    }
+
+    private void reject(Transaction transaction, String reason) {
+        log.error("Transaction {} was rejected by Mongo and kept in the rejected journal file: {}",
+                transaction.getTransactionId(), reason);
+        try {
+            journal.reject(transaction);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to keep rejected transaction " + transaction.getTransactionId(), e);
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        journal.close();
+    }
+
+    private record Pending(Transaction transaction, TransactionJournal.Segment segment) {
+    }
+}